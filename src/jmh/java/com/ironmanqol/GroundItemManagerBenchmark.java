@@ -0,0 +1,102 @@
+package com.ironmanqol;
+
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroundItemManagerBenchmark
+{
+    @Param({"1", "30", "300"})
+    private int pileSize;
+
+    private GroundItemManager manager;
+    private ItemSpawned[] spawns;
+    private ItemDespawned[] despawns;
+    private TileItem lookupItem;
+    private WorldPoint lookupLocation;
+    private TileItems tileItems;
+
+    @Setup
+    public void setUp()
+    {
+        StubClient client = new StubClient();
+        manager = client.createInjector().getInstance(GroundItemManager.class);
+
+        // One pile of distinct items on a single tile, like a PvP death pile
+        Tile tile = client.tile(52, 52, 0);
+        spawns = new ItemSpawned[pileSize];
+        despawns = new ItemDespawned[pileSize];
+        for (int i = 0; i < pileSize; i++)
+        {
+            TileItem item = StubClient.item(ItemID.BRONZE_DAGGER + i, 1);
+            spawns[i] = new ItemSpawned(tile, item);
+            despawns[i] = new ItemDespawned(tile, item);
+        }
+
+        lookupItem = spawns[pileSize - 1].getItem();
+        lookupLocation = tile.getWorldLocation();
+        for (ItemSpawned spawn : spawns)
+        {
+            manager.onItemSpawned(spawn);
+        }
+
+        tileItems = new TileItems();
+        for (ItemSpawned spawn : spawns)
+        {
+            tileItems.add(spawn.getItem().getId(), GroundItemManager.ItemOwnership.OTHER_PLAYER);
+        }
+    }
+
+    @Benchmark
+    public void spawnDespawnPile()
+    {
+        // Measured per pile: every item of the pile is removed and sent again, leaving the pile as it was
+        for (int i = 0; i < spawns.length; i++)
+        {
+            manager.onItemDespawned(despawns[i]);
+            manager.onItemSpawned(spawns[i]);
+        }
+    }
+
+    @Benchmark
+    public void canPickUpItem(Blackhole blackhole)
+    {
+        blackhole.consume(manager.canPickUpItem(lookupItem, lookupLocation));
+    }
+
+    @Benchmark
+    public void canPickUpItemByScene(Blackhole blackhole)
+    {
+        // The lookup the pickup guard and menu filter do, by the menu entry's scene coordinates
+        blackhole.consume(manager.canPickUpItem(lookupItem.getId(), 52, 52, 0));
+    }
+
+    @Benchmark
+    public void getItemOwnership(Blackhole blackhole)
+    {
+        blackhole.consume(manager.getItemOwnership(lookupLocation, lookupItem.getId()));
+    }
+
+    @Benchmark
+    public void tileItemsLookup(Blackhole blackhole)
+    {
+        // Every id of the pile, so a pile of 300 distinct ids can't hide a scan behind one lucky lookup
+        for (ItemSpawned spawn : spawns)
+        {
+            blackhole.consume(tileItems.count(spawn.getItem().getId(), GroundItemManager.ItemOwnership.OTHER_PLAYER));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.ItemID;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemUtilsBenchmark
+{
+    // Names chosen to stop the keyword scans at different depths, the last one misses every list
+    private static final String[] ITEM_NAMES = {
+        "Cooked chicken", "Bucket", "Bronze pickaxe", "Dragon bones", "Oak plank"
+    };
+    private static final int FIRST_ITEM_ID = 30000;
+
+    private Client client;
+
+    @Setup
+    public void setUp()
+    {
+        StubClient stubClient = new StubClient();
+        for (int i = 0; i < ITEM_NAMES.length; i++)
+        {
+            stubClient.defineItem(FIRST_ITEM_ID + i, ITEM_NAMES[i], 100);
+        }
+        client = stubClient.get();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(5)
+    public void heuristicScan(Blackhole blackhole)
+    {
+        for (int i = 0; i < ITEM_NAMES.length; i++)
+        {
+            blackhole.consume(ItemUtils.analyzeItemForShopOrigin(client, FIRST_ITEM_ID + i));
+        }
+    }
+
+    @Benchmark
+    public void knownListLookup(Blackhole blackhole)
+    {
+        blackhole.consume(ItemUtils.isLikelyShopItem(ItemID.TINDERBOX));
+        blackhole.consume(ItemUtils.isCommonlyPlayerSold(ItemID.SHARK));
+    }
+}
@@ -0,0 +1,111 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.client.ui.overlay.OverlayUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnershipOverlayBenchmark
+{
+    private static final int SCENE_CENTER = 52;
+    // A 10x10 block of piles next to the player
+    private static final int PILE_AREA = 10;
+    private static final int TILE_SIZE = 16;
+
+    @Param({"1", "30", "300"})
+    private int pileSize;
+
+    private StubClient client;
+    private GroundItemManager manager;
+    private OwnershipOverlay overlay;
+    private Graphics2D graphics;
+    private final Map<LocalPoint, Polygon> projected = new HashMap<>();
+
+    @Setup
+    public void setUp()
+    {
+        client = new StubClient();
+        Map<String, Object> config = new HashMap<>();
+        config.put("showOwnershipOverlay", true);
+        Injector injector = client.createInjector(StubClient.config(config));
+        manager = injector.getInstance(GroundItemManager.class);
+        overlay = injector.getInstance(OwnershipOverlay.class);
+        TilePolygonCache polygons = injector.getInstance(TilePolygonCache.class);
+
+        client.setSceneBase(3200, 3200);
+        client.setPlayerLocation(new WorldPoint(3200 + SCENE_CENTER, 3200 + SCENE_CENTER, 0));
+        graphics = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+        // There's no renderer to project tiles, so every tile gets a square on a grid
+        polygons.beginFrame();
+        for (int x = 0; x < PILE_AREA; x++)
+        {
+            for (int y = 0; y < PILE_AREA; y++)
+            {
+                int sceneX = SCENE_CENTER - PILE_AREA / 2 + x;
+                int sceneY = SCENE_CENTER - PILE_AREA / 2 + y;
+                LocalPoint point = LocalPoint.fromScene(sceneX, sceneY);
+                Polygon square = new Polygon(
+                        new int[]{x * TILE_SIZE, (x + 1) * TILE_SIZE, (x + 1) * TILE_SIZE, x * TILE_SIZE},
+                        new int[]{y * TILE_SIZE, y * TILE_SIZE, (y + 1) * TILE_SIZE, (y + 1) * TILE_SIZE}, 4);
+                polygons.put(point, square);
+                projected.put(point, square);
+
+                Tile tile = client.tile(sceneX, sceneY, 0);
+                for (int i = 0; i < pileSize; i++)
+                {
+                    TileItem item = StubClient.item(ItemID.BRONZE_DAGGER + i, 1);
+                    tile.getGroundItems().add(item);
+                    manager.onItemSpawned(new ItemSpawned(tile, item));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void render()
+    {
+        overlay.render(graphics);
+    }
+
+    /**
+     * What the overlay replaces: a lookup and a draw for every item of every pile
+     */
+    @Benchmark
+    public void perItemBaseline()
+    {
+        for (int x = 0; x < PILE_AREA; x++)
+        {
+            for (int y = 0; y < PILE_AREA; y++)
+            {
+                Tile tile = client.tile(SCENE_CENTER - PILE_AREA / 2 + x, SCENE_CENTER - PILE_AREA / 2 + y, 0);
+                Polygon polygon = projected.get(tile.getLocalLocation());
+                for (TileItem item : tile.getGroundItems())
+                {
+                    GroundItemManager.ItemOwnership ownership = manager.getItemOwnership(tile.getWorldLocation(), item.getId());
+                    OverlayUtil.renderPolygon(graphics, polygon,
+                            ownership == GroundItemManager.ItemOwnership.OTHER_PLAYER ? Color.RED : Color.GREEN);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.ironmanqol;
+
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.api.events.WidgetLoaded;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopManagerBenchmark
+{
+    private static final String[] ITEM_NAMES = {
+        "Bucket", "Tinderbox", "Cooked chicken", "Rune platebody", "Iron arrow",
+        "Strength potion(4)", "Vial", "Dragon dagger", "Bronze sword", "Magic logs"
+    };
+
+    @Param({"10", "40"})
+    private int shopSize;
+
+    private ShopManager manager;
+    private WidgetLoaded shopOpened;
+    private int shopId;
+    private int firstItemId;
+
+    @Setup
+    public void setUp()
+    {
+        StubClient client = new StubClient();
+        manager = client.createInjector().getInstance(ShopManager.class);
+
+        firstItemId = 20000;
+        Widget[] items = new Widget[shopSize];
+        for (int i = 0; i < shopSize; i++)
+        {
+            int itemId = firstItemId + i;
+            client.defineItem(itemId, ITEM_NAMES[i % ITEM_NAMES.length], i * 250);
+            items[i] = StubClient.shopItem(itemId, 10);
+        }
+        client.setShop("Unknown Trader", items);
+
+        shopOpened = new WidgetLoaded();
+        shopOpened.setGroupId(InterfaceID.SHOP);
+        manager.onWidgetLoaded(shopOpened);
+        shopId = client.get().getLocalPlayer().getWorldLocation().hashCode();
+    }
+
+    @Benchmark
+    public void reopenShop()
+    {
+        manager.onWidgetLoaded(shopOpened);
+    }
+
+    @Benchmark
+    public void classifyStock(Blackhole blackhole)
+    {
+        for (int i = 0; i < shopSize; i++)
+        {
+            blackhole.consume(manager.shouldHideShopItem(shopId, firstItemId + i));
+        }
+    }
+}
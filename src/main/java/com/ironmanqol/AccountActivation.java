@@ -0,0 +1,167 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.events.VarbitChanged;
+import net.runelite.client.eventbus.EventBus;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Tracks whether the logged in account is an ironman and only keeps the
+ * ground item, shop and menu subscribers on the event bus while it is.
+ */
+@Slf4j
+@Singleton
+public class AccountActivation
+{
+    // Account type varbit value for accounts without any ironman restriction
+    private static final int ACCOUNT_TYPE_NORMAL = 0;
+
+    public enum State
+    {
+        UNKNOWN,
+        ACTIVE,
+        INACTIVE
+    }
+
+    @Inject
+    private Client client;
+
+    @Inject
+    private EventBus eventBus;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private ShopManager shopManager;
+
+    @Inject
+    private MenuEntryFilter menuEntryFilter;
+
+    @Inject
+    private PickupGuard pickupGuard;
+
+    @Inject
+    private DropCorrelator dropCorrelator;
+
+    @Inject
+    private ContainerChangeCoalescer containerChangeCoalescer;
+
+    @Inject
+    private MemoryGovernor memoryGovernor;
+
+    @Inject
+    private ShopIndex shopIndex;
+
+    @Inject
+    private SpawnLearner spawnLearner;
+
+    @Inject
+    private WorldStateCache worldStateCache;
+
+    private State state = State.UNKNOWN;
+
+    public State getState()
+    {
+        return state;
+    }
+
+    public boolean isActive()
+    {
+        return state == State.ACTIVE;
+    }
+
+    /**
+     * Detects the account type once per login
+     */
+    public void onLoggedIn()
+    {
+        if (state == State.UNKNOWN)
+        {
+            update(client.getVarbitValue(Varbits.ACCOUNT_TYPE));
+        }
+    }
+
+    public void onVarbitChanged(VarbitChanged event)
+    {
+        if (event.getVarbitId() == Varbits.ACCOUNT_TYPE)
+        {
+            update(client.getVarbitValue(Varbits.ACCOUNT_TYPE));
+        }
+    }
+
+    /**
+     * Unregisters everything and forgets what was learned for the account, e.g. on logout or plugin shutdown
+     */
+    public void reset()
+    {
+        if (state == State.ACTIVE)
+        {
+            unregisterSubscribers();
+        }
+        state = State.UNKNOWN;
+
+        // The next login may be another account, on another world and with its own tick count
+        groundItemManager.reset();
+        shopManager.reset();
+        spawnLearner.resetPending();
+        worldStateCache.clear();
+    }
+
+    private void update(int accountType)
+    {
+        State next = accountType != ACCOUNT_TYPE_NORMAL ? State.ACTIVE : State.INACTIVE;
+        if (next == state)
+        {
+            return;
+        }
+
+        if (next == State.ACTIVE)
+        {
+            registerSubscribers();
+            // Items sent before activation were never seen, pick them up from the scene
+            groundItemManager.rebuildFromScene();
+            log.info("Ironman detected - plugin fully active");
+        }
+        else
+        {
+            if (state == State.ACTIVE)
+            {
+                unregisterSubscribers();
+                groundItemManager.reset();
+            }
+            log.info("Non-ironman account - plugin inactive");
+        }
+
+        state = next;
+    }
+
+    private void registerSubscribers()
+    {
+        eventBus.register(groundItemManager);
+        eventBus.register(shopManager);
+        eventBus.register(menuEntryFilter);
+        eventBus.register(pickupGuard);
+        eventBus.register(dropCorrelator);
+        eventBus.register(containerChangeCoalescer);
+        eventBus.register(memoryGovernor);
+        // Looks up item names a few per tick, while inactive they wait in its queue
+        eventBus.register(shopIndex);
+    }
+
+    private void unregisterSubscribers()
+    {
+        eventBus.unregister(groundItemManager);
+        eventBus.unregister(shopManager);
+        eventBus.unregister(menuEntryFilter);
+        eventBus.unregister(pickupGuard);
+        eventBus.unregister(dropCorrelator);
+        eventBus.unregister(containerChangeCoalescer);
+        eventBus.unregister(memoryGovernor);
+        eventBus.unregister(shopIndex);
+        containerChangeCoalescer.reset();
+    }
+}
@@ -0,0 +1,575 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.ItemComposition;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * User rules overriding the ownership and shop stock heuristics, one per line, e.g.
+ * {@code hide item:bones ownership:other} or {@code stock item:vial* shop:"general store"}.
+ * Rules are compiled into bit masks, one bit per rule in line order, so a decision ANDs an item mask
+ * (worked out once per item id) with masks for the ownership, region and shop, and takes the lowest bit.
+ * That costs the same for three rules or sixty.
+ */
+@Slf4j
+@Singleton
+public class ClassificationRules
+{
+    public enum Action
+    {
+        // Ground and shop items are shown and can be taken
+        SHOW,
+        // Ground and shop items are hidden and their "Take" is filtered
+        HIDE,
+        // Shop items count as original stock
+        STOCK,
+        // Shop items count as sold by players
+        SOLD
+    }
+
+    // One bit per rule in a long mask
+    static final int MAX_RULES = 64;
+
+    private static final GroundItemManager.ItemOwnership[] OWNERSHIPS = GroundItemManager.ItemOwnership.values();
+
+    @Inject
+    private Client client;
+
+    @Inject
+    private IronmanQolConfig config;
+
+    private volatile Compiled compiled = new Compiled(new Rule[0]);
+
+    private long itemCacheHits;
+    private long itemCacheMisses;
+
+    private static final class Rule
+    {
+        final Action action;
+        Pattern itemNames;
+        int[] idRanges;
+        Pattern shopNames;
+        int[] regions;
+        boolean[] ownerships;
+
+        Rule(Action action)
+        {
+            this.action = action;
+        }
+
+        boolean matchesItem(int itemId, String name)
+        {
+            if (idRanges != null)
+            {
+                boolean inRange = false;
+                for (int i = 0; i < idRanges.length && !inRange; i += 2)
+                {
+                    inRange = itemId >= idRanges[i] && itemId <= idRanges[i + 1];
+                }
+                if (!inRange)
+                {
+                    return false;
+                }
+            }
+            return itemNames == null || name != null && itemNames.matcher(name).matches();
+        }
+
+        boolean isShopRule()
+        {
+            return action == Action.STOCK || action == Action.SOLD;
+        }
+    }
+
+    /**
+     * Rules compiled into masks. Item and context masks are cached as they're first asked for, on the client thread.
+     */
+    private static final class Compiled
+    {
+        final Rule[] rules;
+        final boolean needsNames;
+
+        // Rules applying to ground items, to shop visibility and to shop stock; shop masks never have ownership rules
+        final long groundMask;
+        final long shopVisibilityMask;
+        final long shopStockMask;
+
+        // Ownership -> rules allowing it, rules without an ownership condition allow every one
+        final long[] ownershipMasks = new long[OWNERSHIPS.length];
+
+        // Item id -> rules whose item conditions it meets, filled in on first use
+        long[] itemMasks = new long[0];
+        boolean[] itemMasksKnown = new boolean[0];
+
+        // Items, regions and shops come in runs, so the last region and shop mask are kept
+        int lastRegionId = Integer.MIN_VALUE;
+        long lastRegionMask;
+        String lastShopName;
+        long lastShopMask;
+
+        Compiled(Rule[] rules)
+        {
+            this.rules = rules;
+            boolean names = false;
+            long ground = 0;
+            long shopVisibility = 0;
+            long shopStock = 0;
+            for (int i = 0; i < rules.length; i++)
+            {
+                Rule rule = rules[i];
+                long bit = 1L << i;
+                names |= rule.itemNames != null;
+                if (rule.isShopRule())
+                {
+                    shopStock |= bit;
+                }
+                else
+                {
+                    shopVisibility |= rule.ownerships == null ? bit : 0;
+                    ground |= rule.shopNames == null ? bit : 0;
+                }
+
+                for (int o = 0; o < OWNERSHIPS.length; o++)
+                {
+                    if (rule.ownerships == null || rule.ownerships[o])
+                    {
+                        ownershipMasks[o] |= bit;
+                    }
+                }
+            }
+            this.needsNames = names;
+            this.groundMask = ground;
+            this.shopVisibilityMask = shopVisibility;
+            this.shopStockMask = shopStock;
+        }
+
+        long regionMask(int regionId)
+        {
+            if (regionId != lastRegionId)
+            {
+                long mask = 0;
+                for (int i = 0; i < rules.length; i++)
+                {
+                    int[] regions = rules[i].regions;
+                    if (regions == null || contains(regions, regionId))
+                    {
+                        mask |= 1L << i;
+                    }
+                }
+                lastRegionMask = mask;
+                lastRegionId = regionId;
+            }
+            return lastRegionMask;
+        }
+
+        long shopMask(String shopName)
+        {
+            if (!shopName.equals(lastShopName))
+            {
+                long mask = 0;
+                for (int i = 0; i < rules.length; i++)
+                {
+                    Pattern shops = rules[i].shopNames;
+                    if (shops == null || shops.matcher(shopName).matches())
+                    {
+                        mask |= 1L << i;
+                    }
+                }
+                lastShopMask = mask;
+                lastShopName = shopName;
+            }
+            return lastShopMask;
+        }
+    }
+
+    /**
+     * Recompiles the rules from the config, skipping broken lines and writing their errors to the config panel
+     */
+    public synchronized void compile()
+    {
+        long start = System.nanoTime();
+        List<String> errors = new ArrayList<>();
+        List<Rule> rules = new ArrayList<>();
+
+        String text = config.classificationRules();
+        String[] lines = text != null ? text.split("\\r?\\n") : new String[0];
+        for (int i = 0; i < lines.length; i++)
+        {
+            String line = lines[i].trim();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+
+            try
+            {
+                Rule rule = parse(line);
+                if (rules.size() == MAX_RULES)
+                {
+                    errors.add("Line " + (i + 1) + ": only the first " + MAX_RULES + " rules are used");
+                    break;
+                }
+                rules.add(rule);
+            }
+            catch (IllegalArgumentException e)
+            {
+                errors.add("Line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        compiled = new Compiled(rules.toArray(new Rule[0]));
+        for (String error : errors)
+        {
+            log.warn("Classification rules: {}", error);
+        }
+
+        String errorText = String.join("\n", errors);
+        if (!errorText.equals(config.ruleErrors()))
+        {
+            config.ruleErrors(errorText);
+        }
+        log.debug("Compiled {} classification rules with {} errors in {} µs",
+                rules.size(), errors.size(), (System.nanoTime() - start) / 1000);
+    }
+
+    public int getRuleCount()
+    {
+        return compiled.rules.length;
+    }
+
+    /**
+     * Item masks found already worked out, and worked out on first use, since the plugin started
+     */
+    public long getItemCacheHits()
+    {
+        return itemCacheHits;
+    }
+
+    public long getItemCacheMisses()
+    {
+        return itemCacheMisses;
+    }
+
+    /**
+     * Whether any rule can change a ground item decision, so callers can skip asking
+     */
+    public boolean hasGroundRules()
+    {
+        return compiled.groundMask != 0;
+    }
+
+    /**
+     * Gets the action of the first rule matching a ground item, or null if none does
+     */
+    public Action matchGroundItem(int itemId, GroundItemManager.ItemOwnership ownership, int regionId)
+    {
+        Compiled current = compiled;
+        if (current.groundMask == 0)
+        {
+            return null;
+        }
+        return first(current, current.groundMask & current.ownershipMasks[ownership.ordinal()]
+                & current.regionMask(regionId) & itemMask(current, itemId));
+    }
+
+    /**
+     * Gets the action of the first show or hide rule matching an item in the open shop, or null if none does
+     */
+    public Action matchShopVisibility(int itemId, String shopName, int regionId)
+    {
+        Compiled current = compiled;
+        return matchShop(itemId, shopName, regionId, current, current.shopVisibilityMask);
+    }
+
+    /**
+     * Gets the action of the first stock or sold rule matching an item in the open shop, or null if none does
+     */
+    public Action matchShopStock(int itemId, String shopName, int regionId)
+    {
+        Compiled current = compiled;
+        return matchShop(itemId, shopName, regionId, current, current.shopStockMask);
+    }
+
+    /**
+     * Region id of a world position, the same as {@link net.runelite.api.coords.WorldPoint#getRegionID()}
+     */
+    public static int regionId(int worldX, int worldY)
+    {
+        return (worldX >> 6) << 8 | worldY >> 6;
+    }
+
+    private Action matchShop(int itemId, String shopName, int regionId, Compiled current, long targetMask)
+    {
+        if (targetMask == 0)
+        {
+            return null;
+        }
+        return first(current, targetMask & current.shopMask(shopName)
+                & current.regionMask(regionId) & itemMask(current, itemId));
+    }
+
+    private static Action first(Compiled current, long mask)
+    {
+        return mask == 0 ? null : current.rules[Long.numberOfTrailingZeros(mask)].action;
+    }
+
+    private long itemMask(Compiled current, int itemId)
+    {
+        if (itemId < 0)
+        {
+            return 0;
+        }
+
+        if (itemId >= current.itemMasks.length)
+        {
+            int size = Math.max(1024, Integer.highestOneBit(itemId) << 1);
+            current.itemMasks = Arrays.copyOf(current.itemMasks, size);
+            current.itemMasksKnown = Arrays.copyOf(current.itemMasksKnown, size);
+        }
+        if (current.itemMasksKnown[itemId])
+        {
+            itemCacheHits++;
+            return current.itemMasks[itemId];
+        }
+
+        itemCacheMisses++;
+
+        String name = null;
+        if (current.needsNames)
+        {
+            ItemComposition composition = client.getItemDefinition(itemId);
+            name = composition != null ? composition.getName() : null;
+        }
+
+        long mask = 0;
+        for (int i = 0; i < current.rules.length; i++)
+        {
+            if (current.rules[i].matchesItem(itemId, name))
+            {
+                mask |= 1L << i;
+            }
+        }
+        current.itemMasks[itemId] = mask;
+        current.itemMasksKnown[itemId] = true;
+        return mask;
+    }
+
+    // action key:value key:"quoted value" ..., values are comma separated lists
+    private static Rule parse(String line)
+    {
+        List<String> tokens = tokenize(line);
+        Rule rule;
+        try
+        {
+            rule = new Rule(Action.valueOf(tokens.get(0).toUpperCase(Locale.ROOT)));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("unknown action '" + tokens.get(0) + "', expected show, hide, stock or sold");
+        }
+
+        if (tokens.size() == 1)
+        {
+            throw new IllegalArgumentException("rule has no conditions");
+        }
+
+        for (String token : tokens.subList(1, tokens.size()))
+        {
+            int colon = token.indexOf(':');
+            if (colon <= 0 || colon == token.length() - 1)
+            {
+                throw new IllegalArgumentException("expected key:value but got '" + token + "'");
+            }
+
+            String key = token.substring(0, colon).toLowerCase(Locale.ROOT);
+            String[] values = token.substring(colon + 1).split(",");
+            switch (key)
+            {
+                case "item":
+                    rule.itemNames = globs(values);
+                    break;
+                case "id":
+                    rule.idRanges = ranges(values);
+                    break;
+                case "shop":
+                    rule.shopNames = globs(values);
+                    break;
+                case "region":
+                    rule.regions = expandRegions(ranges(values));
+                    break;
+                case "ownership":
+                    if (rule.isShopRule())
+                    {
+                        throw new IllegalArgumentException("shop items have no ownership");
+                    }
+                    rule.ownerships = ownerships(values);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown condition '" + key + "', expected item, id, shop, region or ownership");
+            }
+        }
+
+        if (rule.shopNames != null && rule.ownerships != null)
+        {
+            throw new IllegalArgumentException("a rule can't match both shops and ground item ownership");
+        }
+        return rule;
+    }
+
+    private static List<String> tokenize(String line)
+    {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++)
+        {
+            char c = line.charAt(i);
+            if (c == '"')
+            {
+                quoted = !quoted;
+            }
+            else if (Character.isWhitespace(c) && !quoted)
+            {
+                if (token.length() > 0)
+                {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+            }
+            else
+            {
+                token.append(c);
+            }
+        }
+
+        if (quoted)
+        {
+            throw new IllegalArgumentException("unclosed quote");
+        }
+        if (token.length() > 0)
+        {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    // Case-insensitive globs, * for any run of characters and ? for one
+    private static Pattern globs(String[] values)
+    {
+        StringBuilder regex = new StringBuilder();
+        for (String value : values)
+        {
+            String glob = value.trim().toLowerCase(Locale.ROOT);
+            if (glob.isEmpty())
+            {
+                throw new IllegalArgumentException("empty name");
+            }
+
+            regex.append(regex.length() > 0 ? "|" : "");
+            for (String part : glob.split("(?<=[*?])|(?=[*?])"))
+            {
+                regex.append("*".equals(part) ? ".*" : "?".equals(part) ? "." : Pattern.quote(part));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+    }
+
+    // Numbers or min-max ranges, as min, max pairs
+    private static int[] ranges(String[] values)
+    {
+        int[] ranges = new int[values.length * 2];
+        for (int i = 0; i < values.length; i++)
+        {
+            String value = values[i].trim();
+            int dash = value.indexOf('-', 1);
+            try
+            {
+                ranges[i * 2] = Integer.parseInt(dash == -1 ? value : value.substring(0, dash));
+                ranges[i * 2 + 1] = Integer.parseInt(dash == -1 ? value : value.substring(dash + 1));
+            }
+            catch (NumberFormatException e)
+            {
+                throw new IllegalArgumentException("'" + value + "' is not a number or range");
+            }
+
+            if (ranges[i * 2] > ranges[i * 2 + 1])
+            {
+                throw new IllegalArgumentException("range '" + value + "' is backwards");
+            }
+        }
+        return ranges;
+    }
+
+    // Region ranges spelled out, sorted for a binary search
+    private static int[] expandRegions(int[] ranges)
+    {
+        int count = 0;
+        for (int i = 0; i < ranges.length; i += 2)
+        {
+            count += ranges[i + 1] - ranges[i] + 1;
+            if (count > 1024)
+            {
+                throw new IllegalArgumentException("too many regions, at most 1024");
+            }
+        }
+
+        int[] regions = new int[count];
+        int at = 0;
+        for (int i = 0; i < ranges.length; i += 2)
+        {
+            for (int region = ranges[i]; region <= ranges[i + 1]; region++)
+            {
+                regions[at++] = region;
+            }
+        }
+        Arrays.sort(regions);
+        return regions;
+    }
+
+    private static boolean[] ownerships(String[] values)
+    {
+        boolean[] allowed = new boolean[OWNERSHIPS.length];
+        for (String value : values)
+        {
+            switch (value.trim().toLowerCase(Locale.ROOT))
+            {
+                case "own":
+                case "dropped":
+                case "player_dropped":
+                    allowed[GroundItemManager.ItemOwnership.PLAYER_DROPPED.ordinal()] = true;
+                    break;
+                case "loot":
+                case "player_loot":
+                    allowed[GroundItemManager.ItemOwnership.PLAYER_LOOT.ordinal()] = true;
+                    break;
+                case "other":
+                case "other_player":
+                    allowed[GroundItemManager.ItemOwnership.OTHER_PLAYER.ordinal()] = true;
+                    break;
+                case "spawn":
+                case "static_spawn":
+                    allowed[GroundItemManager.ItemOwnership.STATIC_SPAWN.ordinal()] = true;
+                    break;
+                case "unknown":
+                    allowed[GroundItemManager.ItemOwnership.UNKNOWN.ordinal()] = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown ownership '" + value.trim()
+                            + "', expected own, loot, other, spawn or unknown");
+            }
+        }
+        return allowed;
+    }
+
+    private static boolean contains(int[] sorted, int value)
+    {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+}
@@ -0,0 +1,212 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects container changes during a tick and hands each changed container over once, as a diff, on the next game tick.
+ * Inventory, equipment and shop containers can change several times per tick, the managers only look at the net result.
+ * The first contents seen of a container are only its baseline.
+ */
+@Singleton
+public class ContainerChangeCoalescer
+{
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private ShopManager shopManager;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    // Container id -> latest contents seen this tick, in the order the containers first changed
+    private final Map<Integer, Pending> dirty = new LinkedHashMap<>();
+
+    // Container id -> item id -> total quantity, as of the last delivered diff
+    private final Map<Integer, Map<Integer, Integer>> lastCounts = new HashMap<>();
+
+    private long rawEvents;
+    private long diffsDelivered;
+
+    private static final class Pending
+    {
+        ItemContainer container;
+        int events;
+    }
+
+    /**
+     * The net change of one container over a tick
+     */
+    public static final class Diff
+    {
+        private final int containerId;
+        private final Map<Integer, Integer> changes;
+        private final int events;
+
+        private Diff(int containerId, Map<Integer, Integer> changes, int events)
+        {
+            this.containerId = containerId;
+            this.changes = Collections.unmodifiableMap(changes);
+            this.events = events;
+        }
+
+        public int getContainerId()
+        {
+            return containerId;
+        }
+
+        /**
+         * Item id -> quantity gained (positive) or lost (negative), only items that changed
+         */
+        public Map<Integer, Integer> getChanges()
+        {
+            return changes;
+        }
+
+        public int getQuantityChange(int itemId)
+        {
+            return changes.getOrDefault(itemId, 0);
+        }
+
+        /**
+         * How many raw change events this diff stands for
+         */
+        public int getEvents()
+        {
+            return events;
+        }
+    }
+
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged event)
+    {
+        rawEvents++;
+        Pending pending = dirty.computeIfAbsent(event.getContainerId(), id -> new Pending());
+        pending.container = event.getItemContainer();
+        pending.events++;
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        flush();
+    }
+
+    /**
+     * Diffs every container that changed since the last flush and delivers the non-empty diffs
+     */
+    public void flush()
+    {
+        if (dirty.isEmpty())
+        {
+            return;
+        }
+
+        long start = metrics.start();
+        Iterator<Map.Entry<Integer, Pending>> it = dirty.entrySet().iterator();
+        while (it.hasNext())
+        {
+            Map.Entry<Integer, Pending> entry = it.next();
+            it.remove();
+
+            int containerId = entry.getKey();
+            Pending pending = entry.getValue();
+            Map<Integer, Integer> counts = count(pending.container);
+            Map<Integer, Integer> previous = lastCounts.put(containerId, counts);
+            if (previous == null)
+            {
+                // First sight of the container, e.g. after login, it's the baseline and not a change
+                continue;
+            }
+
+            Map<Integer, Integer> changes = diff(previous, counts);
+            if (changes.isEmpty())
+            {
+                continue;
+            }
+
+            Diff diff = new Diff(containerId, changes, pending.events);
+            diffsDelivered++;
+            groundItemManager.onContainerDiff(diff);
+            shopManager.onContainerDiff(diff);
+        }
+        metrics.record(PluginMetrics.Handler.CONTAINER_DIFF, start);
+    }
+
+    /**
+     * Forgets pending changes and the last known contents, e.g. on logout or a world hop
+     */
+    public void reset()
+    {
+        dirty.clear();
+        lastCounts.clear();
+    }
+
+    public long getRawEvents()
+    {
+        return rawEvents;
+    }
+
+    public long getDiffsDelivered()
+    {
+        return diffsDelivered;
+    }
+
+    /**
+     * Raw change events that didn't result in a delivery of their own
+     */
+    public long getCoalescedEvents()
+    {
+        return rawEvents - diffsDelivered;
+    }
+
+    private static Map<Integer, Integer> count(ItemContainer container)
+    {
+        Map<Integer, Integer> counts = new HashMap<>();
+        if (container == null)
+        {
+            return counts;
+        }
+
+        for (Item item : container.getItems())
+        {
+            if (item.getId() != -1 && item.getQuantity() > 0)
+            {
+                counts.merge(item.getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static Map<Integer, Integer> diff(Map<Integer, Integer> previous, Map<Integer, Integer> current)
+    {
+        Map<Integer, Integer> changes = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : current.entrySet())
+        {
+            int change = entry.getValue() - previous.getOrDefault(entry.getKey(), 0);
+            if (change != 0)
+            {
+                changes.put(entry.getKey(), change);
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : previous.entrySet())
+        {
+            if (!current.containsKey(entry.getKey()))
+            {
+                changes.put(entry.getKey(), -entry.getValue());
+            }
+        }
+        return changes;
+    }
+}
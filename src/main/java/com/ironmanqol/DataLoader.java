@@ -0,0 +1,82 @@
+package com.ironmanqol;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the static spawn, shop and item datasets off the client thread.
+ * Until the load completes the visibility rules hide nothing and the managers answer conservatively,
+ * so startup and login never wait on the data.
+ */
+@Slf4j
+@Singleton
+public class DataLoader
+{
+    @Inject
+    private ScheduledExecutorService executor;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private ShopManager shopManager;
+
+    @Inject
+    private VisibilityRules visibilityRules;
+
+    private CompletableFuture<Void> loaded;
+    private long startNanos;
+    private volatile long readyNanos;
+
+    /**
+     * Starts loading in the background, once; later calls return the same future
+     */
+    public synchronized CompletableFuture<Void> start()
+    {
+        if (loaded == null)
+        {
+            startNanos = System.nanoTime();
+            loaded = CompletableFuture.runAsync(this::load, executor);
+            loaded.whenComplete((result, error) ->
+            {
+                if (error != null)
+                {
+                    log.warn("Loading plugin data failed, nothing will be hidden", error);
+                }
+            });
+        }
+        return loaded;
+    }
+
+    public boolean isReady()
+    {
+        return readyNanos != 0;
+    }
+
+    /**
+     * Milliseconds from {@link #start()} until the first decision backed by the loaded data could be made, or -1 if not yet
+     */
+    public long getTimeToReadyMillis()
+    {
+        long ready = readyNanos;
+        return ready == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(ready - startNanos);
+    }
+
+    private void load()
+    {
+        long start = System.nanoTime();
+        ItemUtils.preload();
+        groundItemManager.loadStaticSpawns();
+        shopManager.loadKnownShopData();
+        visibilityRules.onDataLoaded();
+
+        readyNanos = System.nanoTime();
+        log.info("Plugin data loaded in {} ms, ready for decisions {} ms after startup",
+                TimeUnit.NANOSECONDS.toMillis(readyNanos - start), getTimeToReadyMillis());
+    }
+}
@@ -0,0 +1,146 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.Point;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayUtil;
+
+import javax.inject.Inject;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shows when the player's own drops and loot turn public and when they despawn.
+ * Only tiles near the player are drawn, capped at MAX_LABELS, so the cost doesn't grow with the scene.
+ */
+public class DespawnTimerOverlay extends Overlay
+{
+    private static final int MAX_DISTANCE = 24;
+    private static final int MAX_LABELS = 50;
+    private static final int MILLIS_PER_TICK = 600;
+
+    private static final Color PRIVATE_COLOR = new Color(0, 220, 0);
+    private static final Color PUBLIC_COLOR = new Color(255, 150, 0);
+
+    private final Client client;
+    private final GroundItemManager groundItemManager;
+    private final TilePolygonCache polygons;
+    private final IronmanQolConfig config;
+
+    // Tile -> last label drawn there, the text only changes once a second
+    private final Map<WorldPoint, Label> labels = new HashMap<>();
+
+    private static final class Label
+    {
+        int seconds = -1;
+        boolean isPublic;
+        String text;
+        int textWidth;
+    }
+
+    @Inject
+    private DespawnTimerOverlay(Client client, GroundItemManager groundItemManager, TilePolygonCache polygons,
+                                IronmanQolConfig config)
+    {
+        this.client = client;
+        this.groundItemManager = groundItemManager;
+        this.polygons = polygons;
+        this.config = config;
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ABOVE_SCENE);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        Player player = client.getLocalPlayer();
+        Map<WorldPoint, List<GroundItemManager.DespawnTimer>> timers = groundItemManager.getDespawnTimers();
+        if (!config.showDespawnTimers() || player == null || timers.isEmpty())
+        {
+            labels.clear();
+            return null;
+        }
+
+        if (labels.size() > timers.size())
+        {
+            labels.keySet().retainAll(timers.keySet());
+        }
+
+        polygons.beginFrame();
+        WorldPoint playerLocation = player.getWorldLocation();
+        int tick = client.getTickCount();
+        int drawn = 0;
+
+        for (Map.Entry<WorldPoint, List<GroundItemManager.DespawnTimer>> entry : timers.entrySet())
+        {
+            WorldPoint location = entry.getKey();
+            if (location.getPlane() != playerLocation.getPlane() || location.distanceTo(playerLocation) > MAX_DISTANCE)
+            {
+                continue;
+            }
+
+            LocalPoint localPoint = LocalPoint.fromWorld(client, location);
+            Polygon polygon = localPoint != null ? polygons.get(localPoint) : null;
+            if (polygon == null)
+            {
+                continue;
+            }
+
+            Label label = labels.computeIfAbsent(location, k -> new Label());
+            updateLabel(graphics, label, soonest(entry.getValue()), tick);
+
+            Rectangle bounds = polygon.getBounds();
+            OverlayUtil.renderTextLocation(graphics,
+                    new Point(bounds.x + (bounds.width - label.textWidth) / 2, bounds.y + bounds.height / 2),
+                    label.text, label.isPublic ? PUBLIC_COLOR : PRIVATE_COLOR);
+
+            if (++drawn == MAX_LABELS)
+            {
+                break;
+            }
+        }
+
+        return null;
+    }
+
+    private static GroundItemManager.DespawnTimer soonest(List<GroundItemManager.DespawnTimer> timers)
+    {
+        GroundItemManager.DespawnTimer soonest = timers.get(0);
+        for (GroundItemManager.DespawnTimer timer : timers)
+        {
+            if (timer.getDespawnTick() < soonest.getDespawnTick())
+            {
+                soonest = timer;
+            }
+        }
+        return soonest;
+    }
+
+    private static void updateLabel(Graphics2D graphics, Label label, GroundItemManager.DespawnTimer timer, int tick)
+    {
+        // Counts down to going public first, then to the despawn
+        boolean isPublic = tick >= timer.getPublicTick();
+        int ticksLeft = Math.max(0, (isPublic ? timer.getDespawnTick() : timer.getPublicTick()) - tick);
+        int seconds = ticksLeft * MILLIS_PER_TICK / 1000;
+        if (seconds == label.seconds && isPublic == label.isPublic)
+        {
+            return;
+        }
+
+        label.seconds = seconds;
+        label.isPublic = isPublic;
+        label.text = String.format("%d:%02d", seconds / 60, seconds % 60);
+        label.textWidth = graphics.getFontMetrics().stringWidth(label.text);
+    }
+}
@@ -0,0 +1,153 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Matches "Drop" clicks to the items that appear under the player shortly after, so own drops are known for certain.
+ * Pending drops live in fixed-size ring buffers: recording and matching touch at most CAPACITY slots and never allocate.
+ */
+@Singleton
+public class DropCorrelator
+{
+    // Power of two, comfortably more than the drops a player can queue inside the window
+    private static final int CAPACITY = 32;
+    private static final int MASK = CAPACITY - 1;
+
+    // A drop is processed on the tick after the click, one more covers a late tick
+    private static final int WINDOW_TICKS = 2;
+
+    // Quantity of a drop whose inventory slot couldn't be read, matches any quantity
+    private static final int ANY_QUANTITY = -1;
+
+    @Inject
+    private Client client;
+
+    private final int[] itemIds = new int[CAPACITY];
+    private final int[] quantities = new int[CAPACITY];
+    private final int[] ticks = new int[CAPACITY];
+    private final boolean[] matched = new boolean[CAPACITY];
+
+    // Oldest pending slot and number of slots in use, matched ones included until they reach the head
+    private int head;
+    private int size;
+
+    private long dropsClicked;
+    private long dropsMatched;
+
+    @Subscribe
+    public void onMenuOptionClicked(MenuOptionClicked event)
+    {
+        if (!event.isItemOp() || !"Drop".equals(event.getMenuOption()))
+        {
+            return;
+        }
+
+        record(event.getItemId(), inventoryQuantity(event.getParam0()), client.getTickCount());
+    }
+
+    /**
+     * Checks whether a newly spawned item is one of the player's pending drops, consuming the drop if so
+     */
+    public boolean matchDrop(Tile tile, TileItem item)
+    {
+        int tick = client.getTickCount();
+        expire(tick);
+        if (size == 0)
+        {
+            return false;
+        }
+
+        // Drops always land under the player
+        Player player = client.getLocalPlayer();
+        WorldPoint location = tile.getWorldLocation();
+        if (player == null || !location.equals(player.getWorldLocation()))
+        {
+            return false;
+        }
+
+        int itemId = item.getId();
+        int quantity = item.getQuantity();
+        for (int i = 0; i < size; i++)
+        {
+            int slot = head + i & MASK;
+            if (!matched[slot] && itemIds[slot] == itemId
+                    && (quantities[slot] == ANY_QUANTITY || quantities[slot] == quantity))
+            {
+                matched[slot] = true;
+                dropsMatched++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getPendingCount()
+    {
+        int pending = 0;
+        for (int i = 0; i < size; i++)
+        {
+            if (!matched[head + i & MASK])
+            {
+                pending++;
+            }
+        }
+        return pending;
+    }
+
+    public long getDropsClicked()
+    {
+        return dropsClicked;
+    }
+
+    public long getDropsMatched()
+    {
+        return dropsMatched;
+    }
+
+    public void reset()
+    {
+        head = 0;
+        size = 0;
+    }
+
+    private void record(int itemId, int quantity, int tick)
+    {
+        expire(tick);
+        if (size == CAPACITY)
+        {
+            // Full of drops that haven't landed yet, the oldest is the least likely to still match
+            head = head + 1 & MASK;
+            size--;
+        }
+
+        int slot = head + size & MASK;
+        itemIds[slot] = itemId;
+        quantities[slot] = quantity;
+        ticks[slot] = tick;
+        matched[slot] = false;
+        size++;
+        dropsClicked++;
+    }
+
+    private void expire(int tick)
+    {
+        while (size > 0 && (matched[head] || tick - ticks[head] > WINDOW_TICKS))
+        {
+            head = head + 1 & MASK;
+            size--;
+        }
+    }
+
+    private int inventoryQuantity(int slot)
+    {
+        ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
+        Item item = inventory != null ? inventory.getItem(slot) : null;
+        return item != null ? item.getQuantity() : ANY_QUANTITY;
+    }
+}
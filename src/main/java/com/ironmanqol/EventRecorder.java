@@ -0,0 +1,270 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.*;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import net.runelite.client.RuneLite;
+import net.runelite.client.eventbus.Subscribe;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Records the events the plugin consumes to a file, so a session can be replayed offline
+ */
+@Slf4j
+@Singleton
+public class EventRecorder
+{
+    private static final File RECORDING_DIR = new File(RuneLite.RUNELITE_DIR, "ironman-qol/recordings");
+
+    @Inject
+    private Client client;
+
+    private EventRecording.Writer writer;
+
+    // Gives every ground item a stable handle, so despawns can be matched to spawns on replay.
+    // Cleared when a scene loads, the client sends the new scene's items as new instances.
+    private final Map<TileItem, Integer> itemHandles = new IdentityHashMap<>();
+    private int nextHandle;
+
+    public boolean isRecording()
+    {
+        return writer != null;
+    }
+
+    public void start()
+    {
+        if (writer != null)
+        {
+            return;
+        }
+
+        File file = new File(RECORDING_DIR, "session-" + System.currentTimeMillis() + ".iqr");
+        try
+        {
+            RECORDING_DIR.mkdirs();
+            writer = new EventRecording.Writer(new FileOutputStream(file));
+            log.info("Recording events to {}", file);
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to start event recording", e);
+        }
+    }
+
+    public void stop()
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        try
+        {
+            writer.close();
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to finish event recording", e);
+        }
+        writer = null;
+        itemHandles.clear();
+        nextHandle = 0;
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        Player localPlayer = client.getLocalPlayer();
+        WorldPoint location = localPlayer != null ? localPlayer.getWorldLocation() : null;
+        if (writer == null || location == null)
+        {
+            return;
+        }
+
+        try
+        {
+            writer.tick(client.getTickCount(), client.getWorld(), client.getBaseX(), client.getBaseY(),
+                    location.getX(), location.getY(), location.getPlane());
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event)
+    {
+        if (event.getGameState() == GameState.LOADING)
+        {
+            itemHandles.clear();
+        }
+    }
+
+    @Subscribe
+    public void onItemSpawned(ItemSpawned event)
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        TileItem item = event.getItem();
+        Tile tile = event.getTile();
+        int handle = nextHandle++;
+        itemHandles.put(item, handle);
+
+        try
+        {
+            writer.itemSpawned(handle, tile.getSceneLocation().getX(), tile.getSceneLocation().getY(), tile.getPlane(),
+                    item.getId(), item.getQuantity());
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Subscribe
+    public void onItemDespawned(ItemDespawned event)
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        TileItem item = event.getItem();
+        Tile tile = event.getTile();
+        Integer handle = itemHandles.remove(item);
+
+        try
+        {
+            writer.itemDespawned(handle != null ? handle : -1, tile.getSceneLocation().getX(), tile.getSceneLocation().getY(),
+                    tile.getPlane(), item.getId(), item.getQuantity());
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Subscribe
+    public void onActorDeath(ActorDeath event)
+    {
+        if (writer == null || !(event.getActor() instanceof NPC))
+        {
+            return;
+        }
+
+        NPC npc = (NPC) event.getActor();
+        WorldPoint location = npc.getWorldLocation();
+        try
+        {
+            writer.actorDeath(npc.getIndex(), location.getX(), location.getY(), location.getPlane(),
+                    npc.getInteracting() == client.getLocalPlayer(), npc.getHealthRatio());
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Subscribe
+    public void onItemContainerChanged(ItemContainerChanged event)
+    {
+        if (writer == null)
+        {
+            return;
+        }
+
+        Item[] items = event.getItemContainer().getItems();
+        int[] itemIds = new int[items.length];
+        int[] quantities = new int[items.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            itemIds[i] = items[i].getId();
+            quantities[i] = items[i].getQuantity();
+        }
+
+        try
+        {
+            writer.containerChanged(event.getContainerId(), itemIds, quantities);
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Subscribe
+    public void onMenuOptionClicked(MenuOptionClicked event)
+    {
+        // Only drops, DropCorrelator needs them to tell the player's drops apart on replay
+        if (writer == null || !event.isItemOp() || !"Drop".equals(event.getMenuOption()))
+        {
+            return;
+        }
+
+        try
+        {
+            writer.dropClicked(event.getItemId(), event.getParam0());
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event)
+    {
+        if (writer == null || event.getGroupId() != InterfaceID.SHOP)
+        {
+            return;
+        }
+
+        Widget nameWidget = client.getWidget(InterfaceID.SHOP, 1);
+        Widget itemsWidget = client.getWidget(InterfaceID.SHOP, 3);
+        Widget[] children = itemsWidget != null && itemsWidget.getChildren() != null ? itemsWidget.getChildren() : new Widget[0];
+
+        int count = 0;
+        int[] itemIds = new int[children.length];
+        int[] quantities = new int[children.length];
+        for (Widget child : children)
+        {
+            if (child != null && child.getItemId() != -1)
+            {
+                itemIds[count] = child.getItemId();
+                quantities[count] = child.getItemQuantity();
+                count++;
+            }
+        }
+
+        try
+        {
+            writer.shopOpened(nameWidget != null && nameWidget.getText() != null ? nameWidget.getText() : "",
+                    Arrays.copyOf(itemIds, count), Arrays.copyOf(quantities, count));
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e)
+    {
+        log.warn("Event recording failed, stopping", e);
+        stop();
+    }
+}
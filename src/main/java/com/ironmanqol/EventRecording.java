@@ -0,0 +1,220 @@
+package com.ironmanqol;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary format for recorded plugin event streams.
+ * A recording is a gzipped sequence of typed records, each starting with a one byte type.
+ * Ground items are referred to by a handle so a despawn can be matched to its spawn.
+ */
+public final class EventRecording
+{
+    private static final int MAGIC = 0x49514F4C; // "IQOL"
+    private static final int VERSION = 1;
+
+    private static final byte TICK = 1;
+    private static final byte ITEM_SPAWNED = 2;
+    private static final byte ITEM_DESPAWNED = 3;
+    private static final byte ACTOR_DEATH = 4;
+    private static final byte CONTAINER_CHANGED = 5;
+    private static final byte SHOP_OPENED = 6;
+    private static final byte DROP_CLICKED = 7;
+
+    private EventRecording()
+    {
+    }
+
+    /**
+     * Receives the records of a recording in the order they were written
+     */
+    public interface Listener
+    {
+        void onTick(int tick, int world, int baseX, int baseY, int playerX, int playerY, int playerPlane);
+
+        void onItemSpawned(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity);
+
+        void onItemDespawned(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity);
+
+        void onActorDeath(int npcIndex, int x, int y, int plane, boolean targetingPlayer, int healthRatio);
+
+        void onContainerChanged(int containerId, int[] itemIds, int[] quantities);
+
+        void onShopOpened(String shopName, int[] itemIds, int[] quantities);
+
+        void onDropClicked(int itemId, int slot);
+    }
+
+    public static final class Writer implements Closeable
+    {
+        private final DataOutputStream out;
+
+        public Writer(OutputStream stream) throws IOException
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(stream)));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+
+        public void tick(int tick, int world, int baseX, int baseY, int playerX, int playerY, int playerPlane) throws IOException
+        {
+            out.writeByte(TICK);
+            out.writeInt(tick);
+            out.writeShort(world);
+            out.writeShort(baseX);
+            out.writeShort(baseY);
+            out.writeShort(playerX);
+            out.writeShort(playerY);
+            out.writeByte(playerPlane);
+        }
+
+        public void itemSpawned(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity) throws IOException
+        {
+            out.writeByte(ITEM_SPAWNED);
+            writeItem(handle, sceneX, sceneY, plane, itemId, quantity);
+        }
+
+        public void itemDespawned(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity) throws IOException
+        {
+            out.writeByte(ITEM_DESPAWNED);
+            writeItem(handle, sceneX, sceneY, plane, itemId, quantity);
+        }
+
+        public void actorDeath(int npcIndex, int x, int y, int plane, boolean targetingPlayer, int healthRatio) throws IOException
+        {
+            out.writeByte(ACTOR_DEATH);
+            out.writeShort(npcIndex);
+            out.writeShort(x);
+            out.writeShort(y);
+            out.writeByte(plane);
+            out.writeBoolean(targetingPlayer);
+            out.writeByte(healthRatio);
+        }
+
+        public void containerChanged(int containerId, int[] itemIds, int[] quantities) throws IOException
+        {
+            out.writeByte(CONTAINER_CHANGED);
+            out.writeInt(containerId);
+            writeItems(itemIds, quantities);
+        }
+
+        public void shopOpened(String shopName, int[] itemIds, int[] quantities) throws IOException
+        {
+            out.writeByte(SHOP_OPENED);
+            out.writeUTF(shopName);
+            writeItems(itemIds, quantities);
+        }
+
+        public void dropClicked(int itemId, int slot) throws IOException
+        {
+            out.writeByte(DROP_CLICKED);
+            out.writeInt(itemId);
+            out.writeByte(slot);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            out.close();
+        }
+
+        private void writeItem(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity) throws IOException
+        {
+            out.writeInt(handle);
+            out.writeByte(sceneX);
+            out.writeByte(sceneY);
+            out.writeByte(plane);
+            out.writeInt(itemId);
+            out.writeInt(quantity);
+        }
+
+        private void writeItems(int[] itemIds, int[] quantities) throws IOException
+        {
+            out.writeShort(itemIds.length);
+            for (int i = 0; i < itemIds.length; i++)
+            {
+                out.writeInt(itemIds[i]);
+                out.writeInt(quantities[i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a recording, passing every record to the listener
+     *
+     * @return the number of records read
+     */
+    public static long read(InputStream stream, Listener listener) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(stream)));
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("Not an event recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+        {
+            throw new IOException("Unsupported event recording version " + version);
+        }
+
+        long records = 0;
+        int type;
+        while ((type = in.read()) != -1)
+        {
+            switch (type)
+            {
+                case TICK:
+                    listener.onTick(in.readInt(), in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedShort(),
+                            in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedByte());
+                    break;
+                case ITEM_SPAWNED:
+                    listener.onItemSpawned(in.readInt(), in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte(),
+                            in.readInt(), in.readInt());
+                    break;
+                case ITEM_DESPAWNED:
+                    listener.onItemDespawned(in.readInt(), in.readUnsignedByte(), in.readUnsignedByte(), in.readUnsignedByte(),
+                            in.readInt(), in.readInt());
+                    break;
+                case ACTOR_DEATH:
+                    listener.onActorDeath(in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedShort(),
+                            in.readUnsignedByte(), in.readBoolean(), in.readByte());
+                    break;
+                case CONTAINER_CHANGED:
+                {
+                    int containerId = in.readInt();
+                    int[][] items = readItems(in);
+                    listener.onContainerChanged(containerId, items[0], items[1]);
+                    break;
+                }
+                case SHOP_OPENED:
+                {
+                    String shopName = in.readUTF();
+                    int[][] items = readItems(in);
+                    listener.onShopOpened(shopName, items[0], items[1]);
+                    break;
+                }
+                case DROP_CLICKED:
+                    listener.onDropClicked(in.readInt(), in.readUnsignedByte());
+                    break;
+                default:
+                    throw new IOException("Unknown record type " + type + " after " + records + " records");
+            }
+            records++;
+        }
+        return records;
+    }
+
+    private static int[][] readItems(DataInputStream in) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        int[] itemIds = new int[count];
+        int[] quantities = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            itemIds[i] = in.readInt();
+            quantities[i] = in.readInt();
+        }
+        return new int[][]{itemIds, quantities};
+    }
+}
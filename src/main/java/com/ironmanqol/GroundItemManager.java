@@ -3,6 +3,7 @@ package com.ironmanqol;
 import net.runelite.api.*;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.*;
+import net.runelite.client.eventbus.Subscribe;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
@@ -17,8 +18,27 @@ public class GroundItemManager
     @Inject
     private Client client;
 
-    // Track ground items and their ownership
-    private final Map<WorldPoint, Map<Integer, ItemOwnership>> groundItems = new ConcurrentHashMap<>();
+    @Inject
+    private InstanceKeyMapper instanceKeys;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    @Inject
+    private DropCorrelator dropCorrelator;
+
+    @Inject
+    private SpawnLearner spawnLearner;
+
+    // Items in the loaded scene by location, and the ownership each one was given
+    private final Map<WorldPoint, TileItems> sceneItems = new ConcurrentHashMap<>();
+    private final Map<TileItem, TrackedItem> trackedItems = new IdentityHashMap<>();
+
+    // Items seen in earlier scenes, kept so their ownership survives walking back or the scene loading again
+    private Map<WorldPoint, TileItems> groundItems = new ConcurrentHashMap<>();
+
+    // Ground items seen inside the current instance, keyed by template location
+    private final Map<WorldPoint, TileItems> instanceGroundItems = new ConcurrentHashMap<>();
     
     // Track player's recent item drops with timestamps
     private final Map<TileItem, Long> playerDropTimes = new ConcurrentHashMap<>();
@@ -27,10 +47,40 @@ public class GroundItemManager
     private final Map<WorldPoint, Set<Integer>> staticSpawns = new ConcurrentHashMap<>();
     
     // NPCs recently killed by the player (for loot eligibility)
-    private final Map<Integer, Long> recentPlayerKills = new ConcurrentHashMap<>();
+    private Map<Integer, Long> recentPlayerKills = new ConcurrentHashMap<>();
+
+    // The active ground items of the loaded scene, by scene coordinates
+    private final SceneTileIndex sceneIndex = new SceneTileIndex();
+
+    // Set once the static spawns are loaded, items classified before that are classified again
+    private volatile boolean staticSpawnsLoaded;
+    private boolean classifiedWithoutSpawns;
+
+    // Items that landed under the player unclaimed, until the tick's inventory diff is in
+    private final List<UnclaimedSpawn> unclaimedSpawns = new ArrayList<>();
+
+    // Despawn timers of the player's own items, soonest first, and the same timers by tile
+    private PriorityQueue<DespawnTimer> despawnQueue = newDespawnQueue();
+    private Map<WorldPoint, List<DespawnTimer>> despawnTimers = new ConcurrentHashMap<>();
 
     private static final long DROP_TIMEOUT = 60000; // 1 minute
     private static final long KILL_TIMEOUT = 10000; // 10 seconds
+    private static final long GROUND_ITEM_LIFETIME = 180000; // 3 minutes
+    private static final int CLEANUP_INTERVAL_TICKS = 100;
+
+    // The inventory diff of a tick is delivered on the next game tick, one more covers a late drop
+    private static final int UNCLAIMED_SPAWN_TICKS = 2;
+    private static final int MAX_UNCLAIMED_SPAWNS = 28;
+
+    // Own items turn public after a minute, drops despawn after three and loot after two
+    private static final int PUBLIC_AFTER_TICKS = 100;
+    private static final int DROP_DESPAWN_TICKS = 300;
+    private static final int LOOT_DESPAWN_TICKS = 200;
+
+    // Rough retained size of the tracking maps, for the memory governor
+    private static final int BYTES_PER_LOCATION = 160;
+    private static final int BYTES_PER_ITEM = 48;
+    private static final int BYTES_PER_TIMESTAMP = 64;
 
     public enum ItemOwnership 
     {
@@ -41,58 +91,365 @@ public class GroundItemManager
         UNKNOWN
     }
 
+    private static final class TrackedItem 
+    {
+        final WorldPoint key;
+        final ItemOwnership ownership;
+
+        TrackedItem(WorldPoint key, ItemOwnership ownership) 
+        {
+            this.key = key;
+            this.ownership = ownership;
+        }
+    }
+
+    private static final class UnclaimedSpawn 
+    {
+        final Tile tile;
+        final WorldPoint key;
+        final TileItem item;
+        final int tick;
+
+        UnclaimedSpawn(Tile tile, WorldPoint key, TileItem item, int tick) 
+        {
+            this.tile = tile;
+            this.key = key;
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+
+    /**
+     * What an eviction has freed so far
+     */
+    private static final class Eviction 
+    {
+        final long bytesToFree;
+        final Set<TileItems> tiles = Collections.newSetFromMap(new IdentityHashMap<>());
+        long freed;
+        int items;
+
+        Eviction(long bytesToFree) 
+        {
+            this.bytesToFree = bytesToFree;
+        }
+
+        void add(TileItems tileItems) 
+        {
+            freed += BYTES_PER_LOCATION + (long) tileItems.getItemIdCount() * BYTES_PER_ITEM;
+            items += tileItems.size();
+            tiles.add(tileItems);
+        }
+
+        boolean isDone() 
+        {
+            return freed >= bytesToFree;
+        }
+    }
+
+    /**
+     * When one of the player's own items turns public and when it despawns, in game ticks
+     */
+    public static final class DespawnTimer 
+    {
+        private final WorldPoint location;
+        private final int itemId;
+        private final int publicTick;
+        private final int despawnTick;
+        private boolean cancelled;
+
+        private DespawnTimer(WorldPoint location, int itemId, int publicTick, int despawnTick) 
+        {
+            this.location = location;
+            this.itemId = itemId;
+            this.publicTick = publicTick;
+            this.despawnTick = despawnTick;
+        }
+
+        public WorldPoint getLocation() 
+        {
+            return location;
+        }
+
+        public int getItemId() 
+        {
+            return itemId;
+        }
+
+        public int getPublicTick() 
+        {
+            return publicTick;
+        }
+
+        public int getDespawnTick() 
+        {
+            return despawnTick;
+        }
+    }
+
+    /**
+     * Ground item state of a world we've hopped away from, including the countdowns of the player's own items
+     * and their recent kills there. Drop times are keyed by the client's item objects, which are sent again as
+     * new ones after a hop, so they're left out.
+     */
+    public static final class Snapshot 
+    {
+        private final Map<WorldPoint, TileItems> groundItems;
+        private final PriorityQueue<DespawnTimer> despawnQueue;
+        private final Map<WorldPoint, List<DespawnTimer>> despawnTimers;
+        private final Map<Integer, Long> recentPlayerKills;
+        private final long takenAt;
+
+        private Snapshot(Map<WorldPoint, TileItems> groundItems, PriorityQueue<DespawnTimer> despawnQueue,
+                         Map<WorldPoint, List<DespawnTimer>> despawnTimers, Map<Integer, Long> recentPlayerKills) 
+        {
+            this.groundItems = groundItems;
+            this.despawnQueue = despawnQueue;
+            this.despawnTimers = despawnTimers;
+            this.recentPlayerKills = recentPlayerKills;
+            this.takenAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Number of tiles, countdowns and kills held, without walking the tiles' items
+         */
+        public int size() 
+        {
+            return groundItems.size() + despawnQueue.size() + recentPlayerKills.size();
+        }
+    }
+
+    @Subscribe
     public void onItemSpawned(ItemSpawned event) 
+    {
+        long start = metrics.start();
+        classifyItem(event);
+        metrics.record(PluginMetrics.Handler.ITEM_SPAWNED, start);
+    }
+
+    private void classifyItem(ItemSpawned event) 
     {
         TileItem item = event.getItem();
         Tile tile = event.getTile();
         WorldPoint worldPoint = tile.getWorldLocation();
+        WorldPoint key = instanceKeys.toKey(tile);
+
+        // Sent again while still tracked, e.g. when rebuilding from the scene: own items stay own, the rest is classified again
+        ItemOwnership tracked = removeGroundItem(tile, key, item);
+        if (tracked != null && tracked != ItemOwnership.OTHER_PLAYER) 
+        {
+            addGroundItem(tile, key, item, tracked);
+            return;
+        }
         
+        // Check if this is something the player just dropped, each drop gets its own countdown
+        if (dropCorrelator.matchDrop(tile, item)) 
+        {
+            addGroundItem(tile, key, item, ItemOwnership.PLAYER_DROPPED);
+            playerDropTimes.put(item, System.currentTimeMillis());
+            startDespawnTimer(worldPoint, item.getId(), ItemOwnership.PLAYER_DROPPED);
+            return;
+        }
+
+        // Items remembered from before the scene loaded again keep their ownership, one sent item per remembered one
+        ItemOwnership remembered = takeRemembered(key, item.getId());
+        if (remembered != null) 
+        {
+            addGroundItem(tile, key, item, remembered);
+            return;
+        }
+
+        // Anything without a player source feeds the learner, which promotes tiles that respawn on a steady cycle
+        boolean playerLoot = isRecentPlayerKillLoot(worldPoint);
+        if (!playerLoot && spawnLearner.onSpawn(key, item.getId(), client.getTickCount())) 
+        {
+            addStaticSpawn(key, item.getId());
+        }
+
         // Check if this is a known static spawn
-        if (isStaticSpawn(worldPoint, item.getId())) 
+        if (isStaticSpawn(key, item.getId())) 
         {
-            addGroundItem(worldPoint, item.getId(), ItemOwnership.STATIC_SPAWN);
+            addGroundItem(tile, key, item, ItemOwnership.STATIC_SPAWN);
             return;
         }
         
         // Check if this might be loot from a recent player kill
-        if (isRecentPlayerKillLoot(worldPoint)) 
+        if (playerLoot) 
         {
-            addGroundItem(worldPoint, item.getId(), ItemOwnership.PLAYER_LOOT);
+            addGroundItem(tile, key, item, ItemOwnership.PLAYER_LOOT);
+            startDespawnTimer(worldPoint, item.getId(), ItemOwnership.PLAYER_LOOT);
             return;
         }
         
         // Default to unknown/other player
-        addGroundItem(worldPoint, item.getId(), ItemOwnership.OTHER_PLAYER);
+        addGroundItem(tile, key, item, ItemOwnership.OTHER_PLAYER);
+        classifiedWithoutSpawns |= !staticSpawnsLoaded;
+        rememberUnclaimed(tile, key, item);
     }
 
+    @Subscribe
     public void onItemDespawned(ItemDespawned event) 
     {
+        long start = metrics.start();
         TileItem item = event.getItem();
         Tile tile = event.getTile();
-        WorldPoint worldPoint = tile.getWorldLocation();
         
-        removeGroundItem(worldPoint, item.getId());
+        WorldPoint key = instanceKeys.toKey(tile);
+        removeGroundItem(tile, key, item);
+        spawnLearner.onDespawn(key, item.getId(), client.getTickCount());
         playerDropTimes.remove(item);
+        cancelDespawnTimer(tile.getWorldLocation(), item.getId());
+        metrics.record(PluginMetrics.Handler.ITEM_DESPAWNED, start);
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event) 
+    {
+        if (event.getGameState() == GameState.LOADING) 
+        {
+            onSceneLoading();
+        }
+    }
+
+    /**
+     * The client sends every item of a scene again while it loads, without despawning the old ones.
+     * Everything tracked in the scene is set aside by location until then, so the items sent again pick up
+     * their ownership one for one, and the ones outside the new scene are remembered for when we walk back.
+     * The instance mapping is refreshed here too, so the items sent during the load are keyed for the new scene.
+     */
+    public void onSceneLoading() 
+    {
+        Map<WorldPoint, TileItems> remembered = activeGroundItems();
+        for (Map.Entry<WorldPoint, TileItems> entry : sceneItems.entrySet()) 
+        {
+            TileItems tileItems = remembered.putIfAbsent(entry.getKey(), entry.getValue());
+            if (tileItems != null) 
+            {
+                tileItems.addAll(entry.getValue());
+            }
+        }
+        sceneItems.clear();
+        trackedItems.clear();
+        sceneIndex.clear();
+        unclaimedSpawns.clear();
+
+        // Nothing of the new scene is tracked yet, so forgetting an instance we've left can't lose fresh items
+        if (instanceKeys.onSceneLoading()) 
+        {
+            log.debug("Left instance - evicting {} instance ground item locations", instanceGroundItems.size());
+            instanceGroundItems.clear();
+        }
     }
 
-    // Note: ItemDropped might not exist in RuneLite API, using alternative approach
-    public void onItemContainerChanged(ItemContainerChanged event) 
+    @Subscribe
+    public void onGameTick(GameTick event) 
     {
-        // This is called when inventory changes - we can detect drops this way
-        if (event.getContainerId() == InventoryID.INVENTORY.getId()) 
+        metrics.onTick();
+        expireDespawnTimers(client.getTickCount());
+
+        if (classifiedWithoutSpawns && staticSpawnsLoaded) 
         {
-            // Would need to track previous inventory state to detect drops
-            // This is a simplified approach
+            // Static spawns seen before the data was loaded were taken for other players' items
+            classifiedWithoutSpawns = false;
+            rebuildFromScene();
+        }
+
+        if (client.getTickCount() % CLEANUP_INTERVAL_TICKS == 0) 
+        {
+            cleanup();
+            log.debug("Tracking {} ground item locations - tick: {}", groundItems.size(), client.getTickCount());
         }
     }
 
+    /**
+     * Classifies every item already on the ground, for when tracking starts after the scene loaded
+     */
+    public void rebuildFromScene() 
+    {
+        onSceneLoading();
+
+        Tile[][][] tiles = client.getScene().getTiles();
+        for (Tile[][] plane : tiles) 
+        {
+            for (Tile[] column : plane) 
+            {
+                for (Tile tile : column) 
+                {
+                    if (tile == null || tile.getGroundItems() == null) 
+                    {
+                        continue;
+                    }
+
+                    for (TileItem item : tile.getGroundItems()) 
+                    {
+                        onItemSpawned(new ItemSpawned(tile, item));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims items that landed under the player this tick as own drops when the inventory lost the same items,
+     * for drops whose click wasn't seen
+     */
+    public void onContainerDiff(ContainerChangeCoalescer.Diff diff) 
+    {
+        if (diff.getContainerId() != InventoryID.INVENTORY.getId() || unclaimedSpawns.isEmpty()) 
+        {
+            return;
+        }
+
+        int tick = client.getTickCount();
+        Map<Integer, Integer> removed = new HashMap<>();
+        for (Map.Entry<Integer, Integer> change : diff.getChanges().entrySet()) 
+        {
+            if (change.getValue() < 0) 
+            {
+                removed.put(change.getKey(), -change.getValue());
+            }
+        }
+
+        for (UnclaimedSpawn spawn : unclaimedSpawns) 
+        {
+            int itemId = spawn.item.getId();
+            int left = removed.getOrDefault(itemId, 0);
+            if (tick - spawn.tick > UNCLAIMED_SPAWN_TICKS || left < spawn.item.getQuantity()) 
+            {
+                continue;
+            }
+
+            // Despawned again since, nothing to claim
+            if (removeGroundItem(spawn.tile, spawn.key, spawn.item) == null) 
+            {
+                continue;
+            }
+
+            removed.put(itemId, left - spawn.item.getQuantity());
+            addGroundItem(spawn.tile, spawn.key, spawn.item, ItemOwnership.PLAYER_DROPPED);
+            playerDropTimes.put(spawn.item, System.currentTimeMillis());
+            startDespawnTimer(spawn.tile.getWorldLocation(), itemId, ItemOwnership.PLAYER_DROPPED);
+            log.debug("Claimed item {} as own drop from the inventory diff", itemId);
+        }
+        unclaimedSpawns.clear();
+    }
+
+    @Subscribe
     public void onActorDeath(ActorDeath event) 
+    {
+        long start = metrics.start();
+        trackKill(event);
+        metrics.record(PluginMetrics.Handler.ACTOR_DEATH, start);
+    }
+
+    private void trackKill(ActorDeath event) 
     {
         Actor actor = event.getActor();
         if (actor instanceof NPC) 
         {
             NPC npc = (NPC) actor;
             Player localPlayer = client.getLocalPlayer();
+            spawnLearner.onNpcDeath(instanceKeys.toKey(npc.getWorldLocation()), client.getTickCount());
             
             if (localPlayer != null && wasKilledByPlayer(npc, localPlayer)) 
             {
@@ -115,22 +472,247 @@ public class GroundItemManager
             case PLAYER_DROPPED:
             case PLAYER_LOOT:
             case STATIC_SPAWN:
+            case UNKNOWN:
+                // Nothing known about an untracked item, so it isn't held against the player
                 return true;
             case OTHER_PLAYER:
+            default:
+                // Without the static spawns an unowned item might still be one
+                return !staticSpawnsLoaded;
+        }
+    }
+
+    /**
+     * Checks an item by the scene coordinates a menu entry refers to, in constant time and without allocating a key
+     */
+    public boolean canPickUpItem(int itemId, int sceneX, int sceneY, int plane) 
+    {
+        switch (sceneIndex().getOwnership(sceneX, sceneY, plane, itemId)) 
+        {
+            case PLAYER_DROPPED:
+            case PLAYER_LOOT:
+            case STATIC_SPAWN:
             case UNKNOWN:
+                return true;
             default:
-                return false;
+                return !staticSpawnsLoaded;
         }
     }
 
     public ItemOwnership getItemOwnership(WorldPoint location, int itemId) 
     {
-        Map<Integer, ItemOwnership> locationItems = groundItems.get(location);
-        if (locationItems != null) 
+        return activeOwnership(instanceKeys.toKey(location), itemId);
+    }
+
+    /**
+     * Looks an item up by the scene coordinates a menu entry refers to, in constant time and without allocating a key
+     */
+    public ItemOwnership getItemOwnership(int itemId, int sceneX, int sceneY, int plane) 
+    {
+        return sceneIndex().getOwnership(sceneX, sceneY, plane, itemId);
+    }
+
+    private ItemOwnership activeOwnership(WorldPoint key, int itemId) 
+    {
+        TileItems tileItems = sceneItems.get(key);
+        ItemOwnership ownership = tileItems != null ? tileItems.getOwnership(itemId) : ItemOwnership.UNKNOWN;
+        if (ownership == ItemOwnership.UNKNOWN) 
+        {
+            // Not in the loaded scene, but maybe remembered from an earlier one
+            TileItems remembered = activeGroundItems().get(key);
+            ownership = remembered != null ? remembered.getOwnership(itemId) : ItemOwnership.UNKNOWN;
+        }
+        return ownership;
+    }
+
+    /**
+     * Counts the tracked ground items by ownership, for diagnostics
+     */
+    public Map<ItemOwnership, Integer> countByOwnership() 
+    {
+        Map<ItemOwnership, Integer> counts = new EnumMap<>(ItemOwnership.class);
+        TileItems.Visitor counter = (itemId, ownership, count) -> counts.merge(ownership, count, Integer::sum);
+        sceneItems.values().forEach(tileItems -> tileItems.forEach(counter));
+        activeGroundItems().values().forEach(tileItems -> tileItems.forEach(counter));
+        return counts;
+    }
+
+    public int getTrackedLocationCount() 
+    {
+        return sceneItems.size() + activeGroundItems().size();
+    }
+
+    public int getPendingDropCount() 
+    {
+        return playerDropTimes.size();
+    }
+
+    /**
+     * Starts the public and despawn countdown for one of the player's own items
+     */
+    public void startDespawnTimer(WorldPoint location, int itemId, ItemOwnership ownership) 
+    {
+        int tick = client.getTickCount();
+        int despawnAfter = ownership == ItemOwnership.PLAYER_DROPPED ? DROP_DESPAWN_TICKS : LOOT_DESPAWN_TICKS;
+        DespawnTimer timer = new DespawnTimer(location, itemId, tick + PUBLIC_AFTER_TICKS, tick + despawnAfter);
+        despawnQueue.add(timer);
+        despawnTimers.computeIfAbsent(location, k -> new ArrayList<>()).add(timer);
+    }
+
+    /**
+     * Countdowns of the player's own items, by the tile they're on
+     */
+    public Map<WorldPoint, List<DespawnTimer>> getDespawnTimers() 
+    {
+        return Collections.unmodifiableMap(despawnTimers);
+    }
+
+    private void cancelDespawnTimer(WorldPoint location, int itemId) 
+    {
+        List<DespawnTimer> timers = despawnTimers.get(location);
+        if (timers == null) 
+        {
+            return;
+        }
+
+        for (Iterator<DespawnTimer> it = timers.iterator(); it.hasNext(); ) 
+        {
+            DespawnTimer timer = it.next();
+            if (timer.itemId == itemId) 
+            {
+                // Left in the queue, it's skipped when it comes up
+                timer.cancelled = true;
+                it.remove();
+                break;
+            }
+        }
+        if (timers.isEmpty()) 
+        {
+            despawnTimers.remove(location);
+        }
+    }
+
+    private void expireDespawnTimers(int tick) 
+    {
+        // Catches items whose despawn we never saw, e.g. because the scene moved on
+        while (!despawnQueue.isEmpty() && despawnQueue.peek().despawnTick <= tick) 
+        {
+            DespawnTimer timer = despawnQueue.poll();
+            List<DespawnTimer> timers = despawnTimers.get(timer.location);
+            if (!timer.cancelled && timers != null) 
+            {
+                timers.remove(timer);
+                if (timers.isEmpty()) 
+                {
+                    despawnTimers.remove(timer.location);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimates the memory held by the ground item, drop, kill and despawn timer maps
+     */
+    public long estimateRetainedBytes() 
+    {
+        return estimateBytes(sceneItems) + estimateBytes(groundItems) + estimateBytes(instanceGroundItems)
+                + (long) trackedItems.size() * BYTES_PER_ITEM
+                + (long) (playerDropTimes.size() + recentPlayerKills.size() + despawnQueue.size()) * BYTES_PER_TIMESTAMP;
+    }
+
+    /**
+     * Forgets whole regions of tracked items, farthest from the player first, until at least
+     * the given number of bytes is freed. Items remembered from scenes the player has left go first,
+     * then the loaded scene's, where tiles holding the player's own drops or loot are always kept.
+     * The player's own region is never evicted.
+     *
+     * @return the number of items evicted
+     */
+    public int evictFarthestRegions(long bytesToFree) 
+    {
+        Player localPlayer = client.getLocalPlayer();
+        if (localPlayer == null || bytesToFree <= 0) 
         {
-            return locationItems.getOrDefault(itemId, ItemOwnership.UNKNOWN);
+            return 0;
         }
-        return ItemOwnership.UNKNOWN;
+
+        int playerRegion = instanceKeys.toKey(localPlayer.getWorldLocation()).getRegionID();
+        Eviction eviction = new Eviction(bytesToFree);
+        evictFarthestRegions(Arrays.asList(groundItems, instanceGroundItems), playerRegion, false, eviction);
+        evictFarthestRegions(Collections.singletonList(sceneItems), playerRegion, true, eviction);
+
+        if (!eviction.tiles.isEmpty()) 
+        {
+            sceneIndex.removeAll(eviction.tiles);
+            trackedItems.values().removeIf(tracked -> !sceneItems.containsKey(tracked.key));
+        }
+        return eviction.items;
+    }
+
+    private void evictFarthestRegions(List<Map<WorldPoint, TileItems>> pools, int playerRegion, boolean keepOwnItems, Eviction eviction) 
+    {
+        if (eviction.isDone()) 
+        {
+            return;
+        }
+
+        Map<Integer, List<WorldPoint>> regions = new HashMap<>();
+        for (Map<WorldPoint, TileItems> items : pools) 
+        {
+            for (Map.Entry<WorldPoint, TileItems> entry : items.entrySet()) 
+            {
+                int region = entry.getKey().getRegionID();
+                if (region != playerRegion && !(keepOwnItems && entry.getValue().hasOwnItems())) 
+                {
+                    regions.computeIfAbsent(region, k -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+        }
+
+        List<Integer> farthestFirst = new ArrayList<>(regions.keySet());
+        farthestFirst.sort(Comparator.comparingInt((Integer region) -> regionDistance(region, playerRegion)).reversed());
+
+        for (int region : farthestFirst) 
+        {
+            if (eviction.isDone()) 
+            {
+                break;
+            }
+
+            for (WorldPoint location : regions.get(region)) 
+            {
+                for (Map<WorldPoint, TileItems> items : pools) 
+                {
+                    TileItems tileItems = items.remove(location);
+                    if (tileItems != null) 
+                    {
+                        eviction.add(tileItems);
+                    }
+                }
+            }
+            log.debug("Evicted ground items in region {}", region);
+        }
+    }
+
+    private static PriorityQueue<DespawnTimer> newDespawnQueue() 
+    {
+        return new PriorityQueue<>(Comparator.comparingInt(DespawnTimer::getDespawnTick));
+    }
+
+    private static long estimateBytes(Map<WorldPoint, TileItems> items) 
+    {
+        long bytes = 0;
+        for (TileItems tileItems : items.values()) 
+        {
+            bytes += BYTES_PER_LOCATION + (long) tileItems.getItemIdCount() * BYTES_PER_ITEM;
+        }
+        return bytes;
+    }
+
+    private static int regionDistance(int region, int otherRegion) 
+    {
+        // Region ids pack the region's x into the high byte and its y into the low byte
+        return Math.max(Math.abs((region >> 8) - (otherRegion >> 8)), Math.abs((region & 0xFF) - (otherRegion & 0xFF)));
     }
 
     public void addStaticSpawn(WorldPoint location, int itemId) 
@@ -150,24 +732,116 @@ public class GroundItemManager
         
         // Add more static spawns as needed
         // In a production plugin, this would load from a comprehensive database
+
+        // Spawns learned in earlier sessions
+        spawnLearner.load(this::addStaticSpawn);
+        staticSpawnsLoaded = true;
+    }
+
+    /**
+     * The remembered items for the kind of scene that's loaded
+     */
+    private Map<WorldPoint, TileItems> activeGroundItems() 
+    {
+        return instanceKeys.isInstanced() ? instanceGroundItems : groundItems;
     }
 
-    private void addGroundItem(WorldPoint location, int itemId, ItemOwnership ownership) 
+    /**
+     * Gets the scene index lined up with the loaded scene, for reading many tiles at once, e.g. once per frame
+     */
+    public SceneTileIndex getSceneIndex() 
     {
-        groundItems.computeIfAbsent(location, k -> new ConcurrentHashMap<>()).put(itemId, ownership);
+        return sceneIndex();
     }
 
-    private void removeGroundItem(WorldPoint location, int itemId) 
+    private SceneTileIndex sceneIndex() 
     {
-        Map<Integer, ItemOwnership> locationItems = groundItems.get(location);
-        if (locationItems != null) 
+        sceneIndex.sync(client.getBaseX(), client.getBaseY());
+        return sceneIndex;
+    }
+
+    private void rememberUnclaimed(Tile tile, WorldPoint key, TileItem item) 
+    {
+        Player player = client.getLocalPlayer();
+        if (player == null || !tile.getWorldLocation().equals(player.getWorldLocation())) 
+        {
+            return;
+        }
+
+        int tick = client.getTickCount();
+        // Oldest first, so expired spawns are always at the front
+        while (!unclaimedSpawns.isEmpty() && tick - unclaimedSpawns.get(0).tick > UNCLAIMED_SPAWN_TICKS) 
+        {
+            unclaimedSpawns.remove(0);
+        }
+        if (unclaimedSpawns.size() < MAX_UNCLAIMED_SPAWNS) 
         {
-            locationItems.remove(itemId);
-            if (locationItems.isEmpty()) 
+            unclaimedSpawns.add(new UnclaimedSpawn(tile, key, item, tick));
+        }
+    }
+
+    private void addGroundItem(Tile tile, WorldPoint location, TileItem item, ItemOwnership ownership) 
+    {
+        TileItems tileItems = sceneItems.computeIfAbsent(location, k -> new TileItems());
+        tileItems.add(item.getId(), ownership);
+        trackedItems.put(item, new TrackedItem(location, ownership));
+
+        Point sceneLocation = tile.getSceneLocation();
+        sceneIndex().put(sceneLocation.getX(), sceneLocation.getY(), tile.getPlane(), tileItems);
+    }
+
+    /**
+     * Stops tracking one item of the loaded scene
+     *
+     * @return the ownership it had, or null if it wasn't tracked
+     */
+    private ItemOwnership removeGroundItem(Tile tile, WorldPoint location, TileItem item) 
+    {
+        TrackedItem tracked = trackedItems.remove(item);
+        if (tracked == null) 
+        {
+            return null;
+        }
+
+        TileItems tileItems = sceneItems.get(location);
+        if (tileItems != null) 
+        {
+            tileItems.remove(item.getId(), tracked.ownership);
+            if (tileItems.isEmpty()) 
             {
-                groundItems.remove(location);
+                sceneItems.remove(location);
             }
+
+            Point sceneLocation = tile.getSceneLocation();
+            sceneIndex().put(sceneLocation.getX(), sceneLocation.getY(), tile.getPlane(), tileItems);
         }
+        return tracked.ownership;
+    }
+
+    /**
+     * Takes one remembered item off a location for an item sent again, preferring the ones that keep their ownership
+     *
+     * @return the ownership to keep, or null if the item should be classified again
+     */
+    private ItemOwnership takeRemembered(WorldPoint location, int itemId) 
+    {
+        Map<WorldPoint, TileItems> remembered = activeGroundItems();
+        TileItems tileItems = remembered.get(location);
+        if (tileItems == null) 
+        {
+            return null;
+        }
+
+        ItemOwnership kept = tileItems.takeKept(itemId);
+        if (kept == null) 
+        {
+            tileItems.remove(itemId, ItemOwnership.OTHER_PLAYER);
+        }
+        if (tileItems.isEmpty()) 
+        {
+            remembered.remove(location);
+        }
+        return kept;
     }
 
     private boolean isStaticSpawn(WorldPoint location, int itemId) 
@@ -229,13 +903,83 @@ public class GroundItemManager
             currentTime - entry.getValue() > DROP_TIMEOUT);
             
         cleanupOldKills();
+        spawnLearner.saveIfDirty();
     }
 
     public void reset() 
     {
+        sceneItems.clear();
+        trackedItems.clear();
         groundItems.clear();
+        instanceGroundItems.clear();
         playerDropTimes.clear();
         recentPlayerKills.clear();
+        despawnQueue.clear();
+        despawnTimers.clear();
+        sceneIndex.clear();
+        unclaimedSpawns.clear();
+        dropCorrelator.reset();
         // Don't clear static spawns as they're persistent
     }
+
+    /**
+     * Hands the current world's state over to the caller and starts tracking with empty maps.
+     * Only the loaded scene is moved, into the remembered items, like the scene load that follows would.
+     */
+    public Snapshot detachState() 
+    {
+        onSceneLoading();
+        Snapshot snapshot = new Snapshot(groundItems, despawnQueue, despawnTimers, recentPlayerKills);
+        groundItems = new ConcurrentHashMap<>();
+        despawnQueue = newDespawnQueue();
+        despawnTimers = new ConcurrentHashMap<>();
+        recentPlayerKills = new ConcurrentHashMap<>();
+        playerDropTimes.clear();
+        instanceGroundItems.clear();
+        return snapshot;
+    }
+
+    /**
+     * Swaps a previously detached world state back in.
+     * The restored world sent its items while the scene loaded, before its state was back, so items classified
+     * as someone else's for lack of it get their remembered ownership back, one remembered item for each.
+     * Only what was learned since the detach is merged, the snapshot's maps are taken over as they are.
+     */
+    public void attachState(Snapshot snapshot) 
+    {
+        Map<WorldPoint, TileItems> learned = groundItems;
+        PriorityQueue<DespawnTimer> startedQueue = despawnQueue;
+        Map<WorldPoint, List<DespawnTimer>> started = despawnTimers;
+        Map<Integer, Long> kills = recentPlayerKills;
+
+        // Items don't outlive their despawn timer, so an old ground snapshot is only noise, the timers expire on the next tick
+        boolean groundItemsValid = System.currentTimeMillis() - snapshot.takenAt <= GROUND_ITEM_LIFETIME;
+        groundItems = groundItemsValid ? snapshot.groundItems : new ConcurrentHashMap<>();
+        despawnQueue = snapshot.despawnQueue;
+        despawnTimers = snapshot.despawnTimers;
+        recentPlayerKills = snapshot.recentPlayerKills;
+
+        for (Map.Entry<WorldPoint, TileItems> entry : learned.entrySet()) 
+        {
+            groundItems.computeIfAbsent(entry.getKey(), k -> new TileItems()).addAll(entry.getValue());
+        }
+        despawnQueue.addAll(startedQueue);
+        started.forEach((location, timers) -> despawnTimers.computeIfAbsent(location, k -> new ArrayList<>()).addAll(timers));
+        recentPlayerKills.putAll(kills);
+
+        // The scene's tiles are updated in place, so the scene index keeps pointing at the right counts
+        for (Map.Entry<TileItem, TrackedItem> entry : trackedItems.entrySet()) 
+        {
+            TrackedItem tracked = entry.getValue();
+            int itemId = entry.getKey().getId();
+            ItemOwnership kept = takeRemembered(tracked.key, itemId);
+            TileItems tileItems = sceneItems.get(tracked.key);
+            if (kept != null && tracked.ownership == ItemOwnership.OTHER_PLAYER && tileItems != null) 
+            {
+                tileItems.remove(itemId, ItemOwnership.OTHER_PLAYER);
+                tileItems.add(itemId, kept);
+                entry.setValue(new TrackedItem(tracked.key, kept));
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.coords.WorldPoint;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+/**
+ * Translates tile locations into stable lookup keys.
+ * Outside of instances the key is the tile's world location. Inside instances (raids, ToB, ...)
+ * the coordinates change every time the instance is built, so the key is the location in the
+ * template chunk the instance was copied from instead.
+ */
+@Slf4j
+@Singleton
+public class InstanceKeyMapper
+{
+    private static final int CHUNKS_PER_SIDE = Constants.SCENE_SIZE / Constants.CHUNK_SIZE;
+    private static final int CHUNKS_PER_PLANE = CHUNKS_PER_SIDE * CHUNKS_PER_SIDE;
+    private static final int NO_TEMPLATE = -1;
+
+    @Inject
+    private Client client;
+
+    // Raw template chunk data for the loaded scene, flattened as [plane][chunkX][chunkY]
+    private int[] chunkTemplates = new int[Constants.MAX_Z * CHUNKS_PER_PLANE];
+
+    private boolean instanced;
+
+    /**
+     * Rebuilds the chunk template table when a scene starts loading, before its items are sent.
+     *
+     * @return true if the previous scene was an instance and it has been left or replaced
+     */
+    public boolean onSceneLoading()
+    {
+        boolean wasInstanced = instanced;
+        int[] previous = chunkTemplates;
+
+        instanced = client.isInInstancedRegion();
+        chunkTemplates = instanced ? copyTemplateChunks() : new int[previous.length];
+
+        if (instanced)
+        {
+            log.debug("Instanced scene loaded - keying ground items by template chunk");
+        }
+
+        return wasInstanced && (!instanced || !Arrays.equals(previous, chunkTemplates));
+    }
+
+    public boolean isInstanced()
+    {
+        return instanced;
+    }
+
+    /**
+     * Gets the lookup key for a tile
+     */
+    public WorldPoint toKey(Tile tile)
+    {
+        if (!instanced)
+        {
+            return tile.getWorldLocation();
+        }
+
+        Point sceneLocation = tile.getSceneLocation();
+        WorldPoint template = toTemplate(sceneLocation.getX(), sceneLocation.getY(), tile.getPlane());
+        return template != null ? template : tile.getWorldLocation();
+    }
+
+    /**
+     * Gets the lookup key for a world location inside the loaded scene
+     */
+    public WorldPoint toKey(WorldPoint worldPoint)
+    {
+        if (!instanced)
+        {
+            return worldPoint;
+        }
+
+        int sceneX = worldPoint.getX() - client.getBaseX();
+        int sceneY = worldPoint.getY() - client.getBaseY();
+        WorldPoint template = toTemplate(sceneX, sceneY, worldPoint.getPlane());
+        return template != null ? template : worldPoint;
+    }
+
+    private WorldPoint toTemplate(int sceneX, int sceneY, int plane)
+    {
+        if (sceneX < 0 || sceneY < 0 || sceneX >= Constants.SCENE_SIZE || sceneY >= Constants.SCENE_SIZE
+                || plane < 0 || plane >= Constants.MAX_Z)
+        {
+            return null;
+        }
+
+        int chunkData = chunkTemplates[plane * CHUNKS_PER_PLANE
+                + (sceneX / Constants.CHUNK_SIZE) * CHUNKS_PER_SIDE
+                + sceneY / Constants.CHUNK_SIZE];
+        if (chunkData == NO_TEMPLATE)
+        {
+            return null;
+        }
+
+        // Same layout the client uses for instance template chunks
+        int rotation = chunkData >> 1 & 0x3;
+        int templateY = (chunkData >> 3 & 0x7FF) * Constants.CHUNK_SIZE;
+        int templateX = (chunkData >> 14 & 0x3FF) * Constants.CHUNK_SIZE;
+        int templatePlane = chunkData >> 24 & 0x3;
+
+        // Undo the chunk rotation for the offset within the chunk, turning it back by 4 - rotation
+        // quarter turns like WorldPoint.fromLocalInstance does
+        int x = sceneX & (Constants.CHUNK_SIZE - 1);
+        int y = sceneY & (Constants.CHUNK_SIZE - 1);
+        int last = Constants.CHUNK_SIZE - 1;
+        switch (rotation)
+        {
+            case 1:
+                return new WorldPoint(templateX + (last - y), templateY + x, templatePlane);
+            case 2:
+                return new WorldPoint(templateX + (last - x), templateY + (last - y), templatePlane);
+            case 3:
+                return new WorldPoint(templateX + y, templateY + (last - x), templatePlane);
+            default:
+                return new WorldPoint(templateX + x, templateY + y, templatePlane);
+        }
+    }
+
+    private int[] copyTemplateChunks()
+    {
+        int[] table = new int[Constants.MAX_Z * CHUNKS_PER_PLANE];
+        Arrays.fill(table, NO_TEMPLATE);
+
+        int[][][] templates = client.getInstanceTemplateChunks();
+        if (templates == null)
+        {
+            return table;
+        }
+
+        for (int plane = 0; plane < Math.min(templates.length, Constants.MAX_Z); plane++)
+        {
+            for (int chunkX = 0; chunkX < Math.min(templates[plane].length, CHUNKS_PER_SIDE); chunkX++)
+            {
+                for (int chunkY = 0; chunkY < Math.min(templates[plane][chunkX].length, CHUNKS_PER_SIDE); chunkY++)
+                {
+                    table[plane * CHUNKS_PER_PLANE + chunkX * CHUNKS_PER_SIDE + chunkY] = templates[plane][chunkX][chunkY];
+                }
+            }
+        }
+        return table;
+    }
+}
@@ -3,6 +3,8 @@ package com.ironmanqol;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup("ironmanqol")
 public interface IronmanQolConfig extends Config
@@ -66,4 +68,156 @@ public interface IronmanQolConfig extends Config
 	{
 		return true;
 	}
-}
\ No newline at end of file
+
+	@ConfigItem(
+		keyName = "blockTakeClicks",
+		name = "Block Inaccessible Pickups",
+		description = "Ignore clicks on \"Take\" for items ironmen cannot pick up"
+	)
+	default boolean blockTakeClicks()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "showDespawnTimers",
+		name = "Show Despawn Timers",
+		description = "Show when your own drops and loot turn public and when they despawn"
+	)
+	default boolean showDespawnTimers()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "learnStaticSpawns",
+		name = "Learn Static Spawns",
+		description = "Treat items that keep respawning on the same tile as static spawns"
+	)
+	default boolean learnStaticSpawns()
+	{
+		return true;
+	}
+
+	@ConfigItem(
+		keyName = "learnedSpawns",
+		name = "",
+		description = "",
+		hidden = true
+	)
+	default String learnedSpawns()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "learnedSpawns",
+		name = "",
+		description = ""
+	)
+	void learnedSpawns(String learnedSpawns);
+
+	@ConfigItem(
+		keyName = "classificationRules",
+		name = "Classification Rules",
+		description = "One rule per line: show, hide, stock or sold, then conditions like item:vial*, id:1000-1100, "
+			+ "shop:\"general store\", region:12850 or ownership:other. The first matching rule wins"
+	)
+	default String classificationRules()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "ruleErrors",
+		name = "Rule Errors",
+		description = "Problems found in the classification rules, updated whenever they change. Edits here are put back"
+	)
+	default String ruleErrors()
+	{
+		return "";
+	}
+
+	@ConfigItem(
+		keyName = "ruleErrors",
+		name = "",
+		description = ""
+	)
+	void ruleErrors(String ruleErrors);
+
+	@Range(
+		min = 1,
+		max = 16
+	)
+	@ConfigItem(
+		keyName = "worldSnapshots",
+		name = "Remembered Worlds",
+		description = "Number of worlds whose ground item and shop state is kept when hopping"
+	)
+	default int worldSnapshots()
+	{
+		return 4;
+	}
+
+	@Units(Units.KILOBYTE)
+	@ConfigItem(
+		keyName = "worldSnapshotMemory",
+		name = "Remembered Worlds Memory",
+		description = "Approximate memory cap for remembered worlds, 0 for no cap"
+	)
+	default int worldSnapshotMemory()
+	{
+		return 0;
+	}
+
+	@Units(Units.KILOBYTE)
+	@ConfigItem(
+		keyName = "trackingMemory",
+		name = "Tracking Memory",
+		description = "Approximate memory cap for tracked ground items and shops, 0 for no cap"
+	)
+	default int trackingMemory()
+	{
+		return 4096;
+	}
+
+	@ConfigItem(
+		keyName = "showOwnershipOverlay",
+		name = "Show Item Ownership",
+		description = "Colour ground item tiles by who the items belong to"
+	)
+	default boolean showOwnershipOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "showDebugOverlay",
+		name = "Show Debug Overlay",
+		description = "Show handler latencies and events per tick"
+	)
+	default boolean showDebugOverlay()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "recordEvents",
+		name = "Record Events",
+		description = "Record ground item, shop and container events to the RuneLite folder for offline replay"
+	)
+	default boolean recordEvents()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "exportMetrics",
+		name = "Export Metrics",
+		description = "Write handler latencies, sizes, cache hit rates and queue depths to the RuneLite folder every minute"
+	)
+	default boolean exportMetrics()
+	{
+		return false;
+	}
+}
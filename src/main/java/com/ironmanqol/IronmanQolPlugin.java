@@ -5,10 +5,19 @@ import javax.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.*;
 import net.runelite.api.events.*;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.NavigationButton;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.util.ImageUtil;
+
+import java.awt.image.BufferedImage;
 
 @Slf4j
 @PluginDescriptor(
@@ -18,113 +27,206 @@ import net.runelite.client.plugins.PluginDescriptor;
 )
 public class IronmanQolPlugin extends Plugin
 {
-    // Debug output to verify class loading
-    static {
-        System.out.println("=== IRONMAN QOL PLUGIN CLASS LOADED ===");
-    }
+    // Read once with the class instead of on every startUp
+    private static final BufferedImage SHOP_SEARCH_ICON = ImageUtil.loadImageResource(IronmanQolPlugin.class, "shop_search.png");
+
     @Inject
     private Client client;
 
+    @Inject
+    private ClientThread clientThread;
+
     @Inject
     private IronmanQolConfig config;
 
-    // Remove manager injections for now - we'll add them back later
-    // @Inject
-    // private GroundItemManager groundItemManager;
-    // @Inject
-    // private ShopManager shopManager;
+    @Inject
+    private WorldStateCache worldStateCache;
+
+    @Inject
+    private AccountActivation activation;
+
+    @Inject
+    private ContainerChangeCoalescer containerChangeCoalescer;
+
+    @Inject
+    private OverlayManager overlayManager;
+
+    @Inject
+    private MetricsOverlay metricsOverlay;
+
+    @Inject
+    private DespawnTimerOverlay despawnTimerOverlay;
+
+    @Inject
+    private OwnershipOverlay ownershipOverlay;
+
+    @Inject
+    private EventBus eventBus;
+
+    @Inject
+    private EventRecorder eventRecorder;
+
+    @Inject
+    private MetricsExporter metricsExporter;
+
+    @Inject
+    private VisibilityRules visibilityRules;
+
+    @Inject
+    private ClassificationRules classificationRules;
+
+    @Inject
+    private DataLoader dataLoader;
+
+    @Inject
+    private SpawnLearner spawnLearner;
+
+    @Inject
+    private ShopSearchPanel shopSearchPanel;
+
+    @Inject
+    private ClientToolbar clientToolbar;
+
+    private NavigationButton shopSearchButton;
 
     @Override
     protected void startUp() throws Exception
     {
-        log.info("Ironman QoL plugin started!");
-        System.out.println("=== IRONMAN QOL PLUGIN STARTED ===");
+        long start = System.nanoTime();
+        overlayManager.add(metricsOverlay);
+        overlayManager.add(despawnTimerOverlay);
+        overlayManager.add(ownershipOverlay);
+        updateRecording();
+        updateMetricsExport();
+        classificationRules.compile();
+        visibilityRules.rebuild();
+
+        shopSearchButton = NavigationButton.builder()
+                .tooltip("Ironman shop search")
+                .icon(SHOP_SEARCH_ICON)
+                .priority(7)
+                .panel(shopSearchPanel)
+                .build();
+        clientToolbar.addNavigation(shopSearchButton);
+
+        // Static spawns and shop data load in the background, nothing is hidden until they're in
+        dataLoader.start();
 
-        // Simple initialization without managers for now
         if (client.getGameState() == GameState.LOGGED_IN)
         {
-            initializePlugin();
+            // The account type varbit and the scene can only be read on the client thread
+            clientThread.invoke(this::initializePlugin);
         }
+        log.info("Ironman QoL plugin started in {} µs", (System.nanoTime() - start) / 1000);
     }
 
     @Override
     protected void shutDown() throws Exception
     {
+        overlayManager.remove(metricsOverlay);
+        overlayManager.remove(despawnTimerOverlay);
+        overlayManager.remove(ownershipOverlay);
+        clientToolbar.removeNavigation(shopSearchButton);
+        eventBus.unregister(eventRecorder);
+        eventRecorder.stop();
+        eventBus.unregister(metricsExporter);
+        metricsExporter.stop();
+        activation.reset();
+        spawnLearner.saveIfDirty();
         log.info("Ironman QoL plugin stopped!");
-        System.out.println("=== IRONMAN QOL PLUGIN STOPPED ===");
     }
 
     @Subscribe
     public void onGameStateChanged(GameStateChanged event)
     {
-        if (event.getGameState() == GameState.LOGGED_IN)
+        switch (event.getGameState())
         {
-            log.info("Player logged in - initializing plugin");
-            initializePlugin();
+            case HOPPING:
+                // Containers are sent again on the new world, that's not a change
+                containerChangeCoalescer.reset();
+                worldStateCache.onHopStarted();
+                break;
+            case LOGIN_SCREEN:
+                containerChangeCoalescer.reset();
+                activation.reset();
+                break;
+            case LOGGED_IN:
+                worldStateCache.onWorldLoaded(client.getWorld());
+                initializePlugin();
+                break;
+            default:
+                break;
         }
     }
 
     @Subscribe
-    public void onGameTick(GameTick event)
+    public void onVarbitChanged(VarbitChanged event)
+    {
+        activation.onVarbitChanged(event);
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event)
     {
-        if (!isIronman())
+        // The learner saves its spawns on its own, they don't change any rule
+        if (!"ironmanqol".equals(event.getGroup()) || "learnedSpawns".equals(event.getKey()))
         {
             return;
         }
 
-        // Simple tick counter for debugging
-        if (client.getTickCount() % 100 == 0)
+        // The errors are only ever written by compile, which also puts them back after an edit in the panel
+        if ("classificationRules".equals(event.getKey()) || "ruleErrors".equals(event.getKey()))
         {
-            log.debug("Plugin active - tick: {}", client.getTickCount());
+            classificationRules.compile();
+        }
+        visibilityRules.rebuild();
+
+        if ("recordEvents".equals(event.getKey()))
+        {
+            updateRecording();
+        }
+        else if ("exportMetrics".equals(event.getKey()))
+        {
+            updateMetricsExport();
         }
     }
 
-    private void initializePlugin()
+    private void updateRecording()
     {
-        log.info("Initializing Ironman QoL plugin");
-        System.out.println("Initializing plugin for player: " +
-                (client.getLocalPlayer() != null ? client.getLocalPlayer().getName() : "Unknown"));
-
-        if (isIronman())
+        if (config.recordEvents() && !eventRecorder.isRecording())
         {
-            log.info("Ironman detected - plugin fully active");
-            System.out.println("IRONMAN DETECTED - Plugin active!");
+            eventRecorder.start();
+            eventBus.register(eventRecorder);
         }
-        else
+        else if (!config.recordEvents() && eventRecorder.isRecording())
         {
-            log.info("Non-ironman account - plugin will have limited functionality");
-            System.out.println("Non-ironman account detected");
+            eventBus.unregister(eventRecorder);
+            eventRecorder.stop();
         }
     }
 
-    private boolean isIronman()
+    private void updateMetricsExport()
     {
-        Player localPlayer = client.getLocalPlayer();
-        if (localPlayer == null)
+        if (config.exportMetrics() && !metricsExporter.isExporting())
         {
-            return false;
+            metricsExporter.start();
+            eventBus.register(metricsExporter);
         }
+        else if (!config.exportMetrics() && metricsExporter.isExporting())
+        {
+            eventBus.unregister(metricsExporter);
+            metricsExporter.stop();
+        }
+    }
 
-        // Use account type to detect ironman status
-        //AccountType accountType = client.getAccountType();
-        //if (accountType != null)
-        //{
-        //    return accountType == AccountType.IRONMAN ||
-        //            accountType == AccountType.HARDCORE_IRONMAN ||
-        //            accountType == AccountType.ULTIMATE_IRONMAN;
-        //}
-
-        // Fallback: Use player name suffix to detect ironman status
-        String playerName = localPlayer.getName();
-        if (playerName != null)
+    private void initializePlugin()
+    {
+        if (activation.getState() == AccountActivation.State.UNKNOWN)
         {
-            // Check for ironman crown symbols in name
-            return playerName.contains("♦") || // Ironman symbol
-                    playerName.contains("♠") || // Hardcore ironman symbol
-                    playerName.contains("♣");   // Ultimate ironman symbol
+            log.info("Player logged in - initializing plugin");
         }
 
-        return false;
+        activation.onLoggedIn();
     }
 
     @Provides
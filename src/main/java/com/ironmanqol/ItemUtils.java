@@ -126,6 +126,14 @@ public class ItemUtils
         STATIC_SPAWN_ITEMS.add(ItemID.FEATHER);
     }
     
+    /**
+     * Builds the item lists now, e.g. from a background thread before the client thread needs them
+     */
+    public static void preload() 
+    {
+        // Calling into ItemUtils is enough, its static block fills the lists on first use
+    }
+    
     /**
      * Checks if an item is likely to be original shop stock
      */
@@ -0,0 +1,114 @@
+package com.ironmanqol;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram.
+ * Buckets split every power of two into four, so percentiles are accurate to within 25%
+ * and recording a value never allocates.
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKET_COUNT = 62 * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long max;
+
+    public void record(long nanos)
+    {
+        long value = Math.max(0, nanos);
+        buckets[bucketIndex(value)]++;
+        count++;
+        total += value;
+        if (value > max)
+        {
+            max = value;
+        }
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+
+    public long getTotal()
+    {
+        return total;
+    }
+
+    public long getMax()
+    {
+        return max;
+    }
+
+    /**
+     * Gets the upper bound of the bucket containing the given percentile, in nanoseconds
+     */
+    public long getPercentile(double percentile)
+    {
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+        {
+            seen += buckets[i];
+            if (seen >= target)
+            {
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Copies the bucket counts into the given array, which must hold at least {@link #bucketCount()} values
+     */
+    public void copyBuckets(long[] into)
+    {
+        System.arraycopy(buckets, 0, into, 0, BUCKET_COUNT);
+    }
+
+    public void reset()
+    {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    public static int bucketCount()
+    {
+        return BUCKET_COUNT;
+    }
+
+    static int bucketIndex(long value)
+    {
+        if (value < SUB_BUCKETS)
+        {
+            return (int) value;
+        }
+
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - 2)) & (SUB_BUCKETS - 1);
+        return Math.min((msb - 1) * SUB_BUCKETS + sub, BUCKET_COUNT - 1);
+    }
+
+    static long bucketUpperBound(int index)
+    {
+        if (index < SUB_BUCKETS)
+        {
+            return index;
+        }
+
+        int msb = index / SUB_BUCKETS + 1;
+        int sub = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (msb - 2)) - 1;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ironmanqol;
+
+import net.runelite.api.events.GameTick;
+import net.runelite.client.eventbus.Subscribe;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Keeps the ground item and shop tracking under the configured memory cap.
+ * Over the cap, ground items are forgotten a region at a time, farthest from the player first and those
+ * of scenes the player has left before the loaded scene's, then shops, least recently opened first.
+ */
+@Slf4j
+@Singleton
+public class MemoryGovernor
+{
+    private static final int CHECK_INTERVAL_TICKS = 100;
+
+    // The shop the player is most likely standing at is always kept
+    private static final int MIN_TRACKED_SHOPS = 1;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private ShopManager shopManager;
+
+    @Inject
+    private IronmanQolConfig config;
+
+    private int ticks;
+    private long groundItemBytes;
+    private long shopBytes;
+    private long groundItemEvictions;
+    private long shopEvictions;
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        if (++ticks % CHECK_INTERVAL_TICKS == 0)
+        {
+            enforce();
+        }
+    }
+
+    /**
+     * Measures every structure and evicts until the total is back under the cap
+     */
+    public void enforce()
+    {
+        shopEvictions += shopManager.cleanup();
+        measure();
+
+        long memoryCap = config.trackingMemory() * 1024L;
+        if (memoryCap <= 0 || getUsedBytes() <= memoryCap)
+        {
+            return;
+        }
+
+        groundItemEvictions += groundItemManager.evictFarthestRegions(getUsedBytes() - memoryCap);
+        measure();
+
+        while (getUsedBytes() > memoryCap && shopManager.evictLeastRecentlyOpened(MIN_TRACKED_SHOPS))
+        {
+            shopEvictions++;
+            shopBytes = shopManager.estimateRetainedBytes();
+        }
+
+        log.debug("Tracking {} kB of {} kB cap after eviction", getUsedBytes() / 1024, memoryCap / 1024);
+    }
+
+    public long getUsedBytes()
+    {
+        return groundItemBytes + shopBytes;
+    }
+
+    public long getGroundItemBytes()
+    {
+        return groundItemBytes;
+    }
+
+    public long getShopBytes()
+    {
+        return shopBytes;
+    }
+
+    public long getGroundItemEvictions()
+    {
+        return groundItemEvictions;
+    }
+
+    public long getShopEvictions()
+    {
+        return shopEvictions;
+    }
+
+    private void measure()
+    {
+        groundItemBytes = groundItemManager.estimateRetainedBytes();
+        shopBytes = shopManager.estimateRetainedBytes();
+    }
+}
@@ -0,0 +1,53 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Moves "Take" on ground items the player can't pick up out of the left-click option
+ */
+@Singleton
+public class MenuEntryFilter
+{
+    @Inject
+    private Client client;
+
+    @Inject
+    private VisibilityRules visibilityRules;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    @Subscribe
+    public void onMenuEntryAdded(MenuEntryAdded event)
+    {
+        if (!visibilityRules.filtersTakeOption())
+        {
+            return;
+        }
+
+        MenuEntry entry = event.getMenuEntry();
+        if (entry.getType() != MenuAction.GROUND_ITEM_THIRD_OPTION)
+        {
+            return;
+        }
+
+        long start = metrics.start();
+        // Ground item entries carry the item id and its scene coordinates
+        GroundItemManager.ItemOwnership ownership =
+                groundItemManager.getItemOwnership(entry.getIdentifier(), entry.getParam0(), entry.getParam1(), client.getPlane());
+        int regionId = ClassificationRules.regionId(client.getBaseX() + entry.getParam0(), client.getBaseY() + entry.getParam1());
+        if (!visibilityRules.isAllowed(VisibilityRules.Context.TAKE_OPTION, ownership, entry.getIdentifier(), regionId))
+        {
+            entry.setDeprioritized(true);
+        }
+        metrics.record(PluginMetrics.Handler.MENU_FILTER, start);
+    }
+}
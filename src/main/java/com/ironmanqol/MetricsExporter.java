@@ -0,0 +1,385 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.RuneLite;
+import net.runelite.client.eventbus.Subscribe;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the plugin's counters and histogram snapshots to a rolling file, for looking at a long session afterwards.
+ * The client thread only copies numbers into a snapshot every so often; formatting and writing happen
+ * in batches on the executor. Each line is one snapshot of {@code key=value} pairs.
+ */
+@Slf4j
+@Singleton
+public class MetricsExporter
+{
+    static final File METRICS_DIR = new File(RuneLite.RUNELITE_DIR, "ironman-qol/metrics");
+    static final String FILE_NAME = "metrics.log";
+
+    // A snapshot a minute, written out every five
+    static final int SNAPSHOT_TICKS = 100;
+    private static final long WRITE_PERIOD_SECONDS = 300;
+
+    // The live file rolls over at this size, keeping this many older files
+    private static final long MAX_FILE_BYTES = 1024 * 1024;
+    static final int KEPT_FILES = 3;
+
+    private static final PluginMetrics.Handler[] HANDLERS = PluginMetrics.Handler.values();
+    private static final String[] KEYS = keys();
+
+    @Inject
+    private Client client;
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    @Inject
+    private MemoryGovernor memoryGovernor;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private ShopManager shopManager;
+
+    @Inject
+    private ShopIndex shopIndex;
+
+    @Inject
+    private SpawnLearner spawnLearner;
+
+    @Inject
+    private DropCorrelator dropCorrelator;
+
+    @Inject
+    private ContainerChangeCoalescer containerChangeCoalescer;
+
+    @Inject
+    private PickupGuard pickupGuard;
+
+    @Inject
+    private WorldStateCache worldStateCache;
+
+    @Inject
+    private TilePolygonCache tilePolygonCache;
+
+    @Inject
+    private ClassificationRules classificationRules;
+
+    private final Queue<Snapshot> pending = new ConcurrentLinkedQueue<>();
+
+    private File directory = METRICS_DIR;
+    private long maxFileBytes = MAX_FILE_BYTES;
+
+    private ScheduledFuture<?> writeTask;
+    private long session;
+    private int lastSnapshotTick = -1;
+
+    /**
+     * Counter values copied on the client thread, in {@link #KEYS} order
+     */
+    private static final class Snapshot
+    {
+        final long timeMillis;
+        final long[] values;
+
+        Snapshot(long timeMillis, long[] values)
+        {
+            this.timeMillis = timeMillis;
+            this.values = values;
+        }
+    }
+
+    public synchronized boolean isExporting()
+    {
+        return writeTask != null;
+    }
+
+    public synchronized void start()
+    {
+        if (writeTask != null)
+        {
+            return;
+        }
+
+        session = System.currentTimeMillis();
+        lastSnapshotTick = -1;
+        writeTask = executor.scheduleWithFixedDelay(this::write, WRITE_PERIOD_SECONDS, WRITE_PERIOD_SECONDS, TimeUnit.SECONDS);
+        log.info("Exporting metrics to {}", new File(directory, FILE_NAME));
+    }
+
+    /**
+     * Stops taking snapshots and writes out the ones still pending, off the calling thread
+     */
+    public synchronized void stop()
+    {
+        if (writeTask == null)
+        {
+            return;
+        }
+
+        writeTask.cancel(false);
+        writeTask = null;
+        executor.execute(this::write);
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        int tick = client.getTickCount();
+        if (lastSnapshotTick == -1 || tick - lastSnapshotTick >= SNAPSHOT_TICKS)
+        {
+            lastSnapshotTick = tick;
+            snapshot();
+        }
+    }
+
+    /**
+     * Queues a snapshot of every counter, on the client thread
+     */
+    public void snapshot()
+    {
+        long[] values = new long[KEYS.length];
+        int i = 0;
+        values[i++] = session;
+        values[i++] = client.getTickCount();
+        values[i++] = metrics.getTicks();
+        values[i++] = metrics.getMaxEventsPerTick();
+        for (PluginMetrics.Handler handler : HANDLERS)
+        {
+            i = histogram(values, i, metrics.getHistogram(handler));
+            values[i++] = metrics.getEventsLastTick(handler);
+        }
+        i = histogram(values, i, metrics.getOverlayFrameHistogram());
+
+        values[i++] = groundItemManager.getTrackedLocationCount();
+        values[i++] = shopManager.getTrackedShopCount();
+        values[i++] = shopIndex.getItemCount();
+        values[i++] = shopIndex.getShopCount();
+        values[i++] = spawnLearner.getLearnedCount();
+        values[i++] = worldStateCache.getSnapshotCount();
+
+        values[i++] = memoryGovernor.getUsedBytes();
+        values[i++] = memoryGovernor.getGroundItemEvictions();
+        values[i++] = memoryGovernor.getShopEvictions();
+        values[i++] = worldStateCache.getEvictions();
+
+        values[i++] = classificationRules.getItemCacheHits();
+        values[i++] = classificationRules.getItemCacheMisses();
+        values[i++] = shopManager.getBaselineHits();
+        values[i++] = shopManager.getBaselineMisses();
+        values[i++] = worldStateCache.getHits();
+        values[i++] = worldStateCache.getMisses();
+        values[i++] = tilePolygonCache.getHits();
+        values[i++] = tilePolygonCache.getMisses();
+
+        values[i++] = dropCorrelator.getPendingCount();
+        values[i++] = groundItemManager.getPendingDropCount();
+        values[i++] = shopIndex.getPendingNameCount();
+        values[i++] = pending.size();
+
+        values[i++] = containerChangeCoalescer.getRawEvents();
+        values[i++] = containerChangeCoalescer.getDiffsDelivered();
+        values[i++] = dropCorrelator.getDropsClicked();
+        values[i++] = dropCorrelator.getDropsMatched();
+        values[i] = pickupGuard.getBlockedClicks();
+
+        pending.add(new Snapshot(System.currentTimeMillis(), values));
+    }
+
+    /**
+     * Appends every pending snapshot to the file in one go, rolling it over first if it's full
+     */
+    synchronized void write()
+    {
+        if (pending.isEmpty())
+        {
+            return;
+        }
+
+        File file = new File(directory, FILE_NAME);
+        try
+        {
+            directory.mkdirs();
+            if (file.length() >= maxFileBytes)
+            {
+                roll();
+            }
+
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)))
+            {
+                Snapshot snapshot;
+                while ((snapshot = pending.poll()) != null)
+                {
+                    writer.write(format(snapshot));
+                    writer.write('\n');
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            log.warn("Unable to write metrics to {}", file, e);
+            pending.clear();
+        }
+    }
+
+    /**
+     * Points the export somewhere else with a different roll-over size, for tests
+     */
+    void setOutput(File directory, long maxFileBytes)
+    {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+    }
+
+    /**
+     * Gets the export files oldest first, the live file last
+     */
+    static List<File> files(File directory)
+    {
+        List<File> files = new ArrayList<>();
+        for (int i = KEPT_FILES; i >= 1; i--)
+        {
+            File rolled = rolledFile(directory, i);
+            if (rolled.exists())
+            {
+                files.add(rolled);
+            }
+        }
+        File live = new File(directory, FILE_NAME);
+        if (live.exists())
+        {
+            files.add(live);
+        }
+        return files;
+    }
+
+    private void roll() throws IOException
+    {
+        File oldest = rolledFile(directory, KEPT_FILES);
+        if (oldest.exists() && !oldest.delete())
+        {
+            throw new IOException("Unable to delete " + oldest);
+        }
+
+        for (int i = KEPT_FILES - 1; i >= 1; i--)
+        {
+            File rolled = rolledFile(directory, i);
+            if (rolled.exists() && !rolled.renameTo(rolledFile(directory, i + 1)))
+            {
+                throw new IOException("Unable to roll over " + rolled);
+            }
+        }
+
+        File live = new File(directory, FILE_NAME);
+        if (!live.renameTo(rolledFile(directory, 1)))
+        {
+            throw new IOException("Unable to roll over " + live);
+        }
+    }
+
+    private static File rolledFile(File directory, int index)
+    {
+        return new File(directory, FILE_NAME.replace(".log", "." + index + ".log"));
+    }
+
+    private static String format(Snapshot snapshot)
+    {
+        StringBuilder line = new StringBuilder(KEYS.length * 24);
+        line.append("time=").append(snapshot.timeMillis);
+        for (int i = 0; i < KEYS.length; i++)
+        {
+            line.append(' ').append(KEYS[i]).append('=').append(snapshot.values[i]);
+        }
+        return line.toString();
+    }
+
+    private static int histogram(long[] values, int i, LatencyHistogram histogram)
+    {
+        values[i++] = histogram.getCount();
+        values[i++] = histogram.getPercentile(50);
+        values[i++] = histogram.getPercentile(99);
+        values[i++] = histogram.getMax();
+        return i;
+    }
+
+    // Latencies are in nanoseconds, counts of hits, misses, events and evictions are since the plugin started
+    private static String[] keys()
+    {
+        List<String> keys = new ArrayList<>();
+        keys.add("session");
+        keys.add("tick");
+        keys.add("ticks");
+        keys.add("max_events_per_tick");
+        for (PluginMetrics.Handler handler : HANDLERS)
+        {
+            addHistogram(keys, handler.name().toLowerCase(Locale.ROOT));
+            keys.add(handler.name().toLowerCase(Locale.ROOT) + ".last_tick_events");
+        }
+        addHistogram(keys, "overlay_frame");
+
+        keys.add("size.tracked_locations");
+        keys.add("size.tracked_shops");
+        keys.add("size.shop_index_items");
+        keys.add("size.shop_index_shops");
+        keys.add("size.learned_spawns");
+        keys.add("size.world_snapshots");
+
+        keys.add("memory.used_bytes");
+        keys.add("evictions.ground_items");
+        keys.add("evictions.shops");
+        keys.add("evictions.world_snapshots");
+
+        keys.add("cache.item_rules.hits");
+        keys.add("cache.item_rules.misses");
+        keys.add("cache.shop_baselines.hits");
+        keys.add("cache.shop_baselines.misses");
+        keys.add("cache.world_state.hits");
+        keys.add("cache.world_state.misses");
+        keys.add("cache.tile_polygons.hits");
+        keys.add("cache.tile_polygons.misses");
+
+        keys.add("queue.pending_drop_clicks");
+        keys.add("queue.pending_drop_timers");
+        keys.add("queue.unnamed_shop_items");
+        keys.add("queue.metrics_snapshots");
+
+        keys.add("container.events");
+        keys.add("container.diffs");
+        keys.add("drops.clicked");
+        keys.add("drops.matched");
+        keys.add("takes.blocked");
+        return keys.toArray(new String[0]);
+    }
+
+    private static void addHistogram(List<String> keys, String name)
+    {
+        keys.add(name + ".count");
+        keys.add(name + ".p50_ns");
+        keys.add(name + ".p99_ns");
+        keys.add(name + ".max_ns");
+    }
+}
@@ -0,0 +1,116 @@
+package com.ironmanqol;
+
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+
+import javax.inject.Inject;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+
+/**
+ * Debug overlay showing p50/p99/max handler latency, events per tick and tracking memory
+ */
+public class MetricsOverlay extends OverlayPanel
+{
+    private final PluginMetrics metrics;
+    private final MemoryGovernor memoryGovernor;
+    private final PickupGuard pickupGuard;
+    private final DropCorrelator dropCorrelator;
+    private final ContainerChangeCoalescer containerChangeCoalescer;
+    private final SpawnLearner spawnLearner;
+    private final IronmanQolConfig config;
+
+    @Inject
+    private MetricsOverlay(PluginMetrics metrics, MemoryGovernor memoryGovernor, PickupGuard pickupGuard,
+                           DropCorrelator dropCorrelator, ContainerChangeCoalescer containerChangeCoalescer,
+                           SpawnLearner spawnLearner, IronmanQolConfig config)
+    {
+        this.metrics = metrics;
+        this.memoryGovernor = memoryGovernor;
+        this.pickupGuard = pickupGuard;
+        this.dropCorrelator = dropCorrelator;
+        this.containerChangeCoalescer = containerChangeCoalescer;
+        this.spawnLearner = spawnLearner;
+        this.config = config;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        if (!config.showDebugOverlay())
+        {
+            return null;
+        }
+
+        panelComponent.getChildren().add(TitleComponent.builder()
+                .text("Ironman QoL (µs p50/p99/max)")
+                .build());
+
+        for (PluginMetrics.Handler handler : PluginMetrics.Handler.values())
+        {
+            LatencyHistogram histogram = metrics.getHistogram(handler);
+            panelComponent.getChildren().add(LineComponent.builder()
+                    .left(handler.getDisplayName() + " (" + metrics.getEventsLastTick(handler) + "/t)")
+                    .right(micros(histogram.getPercentile(50)) + " / "
+                            + micros(histogram.getPercentile(99)) + " / "
+                            + micros(histogram.getMax()))
+                    .build());
+        }
+
+        LatencyHistogram overlayFrames = metrics.getOverlayFrameHistogram();
+        if (overlayFrames.getCount() > 0)
+        {
+            panelComponent.getChildren().add(LineComponent.builder()
+                    .left("Ownership overlay")
+                    .right(micros(overlayFrames.getPercentile(50)) + " / "
+                            + micros(overlayFrames.getPercentile(99)) + " / "
+                            + micros(overlayFrames.getMax()))
+                    .build());
+        }
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Max events/tick")
+                .right(Long.toString(metrics.getMaxEventsPerTick()))
+                .build());
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Blocked takes")
+                .right(Long.toString(pickupGuard.getBlockedClicks()))
+                .build());
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Drops matched")
+                .right(dropCorrelator.getDropsMatched() + " / " + dropCorrelator.getDropsClicked())
+                .build());
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Container events/diffs")
+                .right(containerChangeCoalescer.getRawEvents() + " / " + containerChangeCoalescer.getDiffsDelivered())
+                .build());
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Learned spawns")
+                .right(Integer.toString(spawnLearner.getLearnedCount()))
+                .build());
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Tracking memory")
+                .right(memoryGovernor.getUsedBytes() / 1024 + " / " + config.trackingMemory() + " kB")
+                .build());
+
+        panelComponent.getChildren().add(LineComponent.builder()
+                .left("Evicted items/shops")
+                .right(memoryGovernor.getGroundItemEvictions() + " / " + memoryGovernor.getShopEvictions())
+                .build());
+
+        return super.render(graphics);
+    }
+
+    private static String micros(long nanos)
+    {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.Player;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.OverlayUtil;
+
+import javax.inject.Inject;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+
+/**
+ * Colours tiles with ground items by who the items belong to, one polygon per tile however many items are stacked.
+ * Tiles are visited outwards from the player through the scene index, and drawing stops once the frame budget is spent.
+ */
+public class OwnershipOverlay extends Overlay
+{
+    private static final int MAX_DISTANCE = 24;
+    private static final long FRAME_BUDGET_NANOS = 1_000_000;
+    // Checking the clock every tile would cost more than the check saves
+    private static final int BUDGET_CHECK_INTERVAL = 8;
+
+    private static final Color[] COLORS = new Color[GroundItemManager.ItemOwnership.values().length];
+
+    static
+    {
+        COLORS[GroundItemManager.ItemOwnership.PLAYER_DROPPED.ordinal()] = Color.CYAN;
+        COLORS[GroundItemManager.ItemOwnership.PLAYER_LOOT.ordinal()] = Color.GREEN;
+        COLORS[GroundItemManager.ItemOwnership.STATIC_SPAWN.ordinal()] = Color.YELLOW;
+        COLORS[GroundItemManager.ItemOwnership.OTHER_PLAYER.ordinal()] = Color.RED;
+        COLORS[GroundItemManager.ItemOwnership.UNKNOWN.ordinal()] = Color.GRAY;
+    }
+
+    private final Client client;
+    private final GroundItemManager groundItemManager;
+    private final TilePolygonCache polygons;
+    private final PluginMetrics metrics;
+    private final IronmanQolConfig config;
+
+    private long budgetExceeded;
+
+    @Inject
+    OwnershipOverlay(Client client, GroundItemManager groundItemManager, TilePolygonCache polygons, PluginMetrics metrics,
+                     IronmanQolConfig config)
+    {
+        this.client = client;
+        this.groundItemManager = groundItemManager;
+        this.polygons = polygons;
+        this.metrics = metrics;
+        this.config = config;
+        setPosition(OverlayPosition.DYNAMIC);
+        setLayer(OverlayLayer.ABOVE_SCENE);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics)
+    {
+        Player player = client.getLocalPlayer();
+        if (!config.showOwnershipOverlay() || player == null)
+        {
+            return null;
+        }
+
+        LocalPoint playerPoint = LocalPoint.fromWorld(client, player.getWorldLocation());
+        if (playerPoint == null)
+        {
+            return null;
+        }
+
+        long start = metrics.start();
+        long deadline = start + FRAME_BUDGET_NANOS;
+        polygons.beginFrame();
+
+        // Lined up with the scene once, every tile of the frame reads it directly
+        SceneTileIndex sceneIndex = groundItemManager.getSceneIndex();
+
+        int centerX = playerPoint.getSceneX();
+        int centerY = playerPoint.getSceneY();
+        int plane = client.getPlane();
+        int drawn = 0;
+
+        // Ring by ring, so the nearest tiles are drawn if the budget runs out
+        rings:
+        for (int ring = 0; ring <= MAX_DISTANCE; ring++)
+        {
+            int side = ring == 0 ? 1 : ring * 2;
+            for (int edge = 0; edge < (ring == 0 ? 1 : 4); edge++)
+            {
+                for (int step = 0; step < side; step++)
+                {
+                    int x;
+                    int y;
+                    switch (edge)
+                    {
+                        case 0:
+                            x = centerX - ring + step;
+                            y = centerY + ring;
+                            break;
+                        case 1:
+                            x = centerX + ring;
+                            y = centerY + ring - step;
+                            break;
+                        case 2:
+                            x = centerX + ring - step;
+                            y = centerY - ring;
+                            break;
+                        default:
+                            x = centerX - ring;
+                            y = centerY - ring + step;
+                            break;
+                    }
+
+                    if (drawTile(graphics, sceneIndex, x, y, plane) && ++drawn % BUDGET_CHECK_INTERVAL == 0
+                            && System.nanoTime() > deadline)
+                    {
+                        budgetExceeded++;
+                        break rings;
+                    }
+                }
+            }
+        }
+
+        metrics.recordOverlayFrame(start);
+        return null;
+    }
+
+    /**
+     * Number of frames that ran out of budget before reaching the outermost tiles
+     */
+    public long getBudgetExceeded()
+    {
+        return budgetExceeded;
+    }
+
+    private boolean drawTile(Graphics2D graphics, SceneTileIndex sceneIndex, int sceneX, int sceneY, int plane)
+    {
+        if (sceneX < 0 || sceneY < 0 || sceneX >= Constants.SCENE_SIZE || sceneY >= Constants.SCENE_SIZE)
+        {
+            return false;
+        }
+
+        GroundItemManager.ItemOwnership ownership = sceneIndex.getTileOwnership(sceneX, sceneY, plane);
+        if (ownership == null)
+        {
+            return false;
+        }
+
+        Polygon polygon = polygons.get(LocalPoint.fromScene(sceneX, sceneY));
+        if (polygon == null)
+        {
+            return false;
+        }
+
+        OverlayUtil.renderPolygon(graphics, polygon, COLORS[ownership.ordinal()]);
+        return true;
+    }
+}
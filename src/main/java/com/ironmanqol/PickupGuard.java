@@ -0,0 +1,71 @@
+package com.ironmanqol;
+
+import net.runelite.api.*;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.client.eventbus.Subscribe;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Consumes "Take" clicks on ground items the player can't pick up, e.g. misclicks into someone else's pile
+ */
+@Slf4j
+@Singleton
+public class PickupGuard
+{
+    private static final GroundItemManager.ItemOwnership[] OWNERSHIPS = GroundItemManager.ItemOwnership.values();
+
+    @Inject
+    private Client client;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private VisibilityRules visibilityRules;
+
+    @Inject
+    private PluginMetrics metrics;
+
+    private final long[] blockedByOwnership = new long[OWNERSHIPS.length];
+    private long blockedClicks;
+
+    @Subscribe
+    public void onMenuOptionClicked(MenuOptionClicked event)
+    {
+        if (!visibilityRules.blocksTakeClicks() || event.getMenuAction() != MenuAction.GROUND_ITEM_THIRD_OPTION)
+        {
+            return;
+        }
+
+        long start = metrics.start();
+        // Ground item entries carry the item id and its scene coordinates, so this is an array read and a map lookup
+        GroundItemManager.ItemOwnership ownership =
+                groundItemManager.getItemOwnership(event.getId(), event.getParam0(), event.getParam1(), client.getPlane());
+        int regionId = ClassificationRules.regionId(client.getBaseX() + event.getParam0(), client.getBaseY() + event.getParam1());
+        if (!visibilityRules.isAllowed(VisibilityRules.Context.TAKE_CLICK, ownership, event.getId(), regionId))
+        {
+            event.consume();
+            blockedClicks++;
+            blockedByOwnership[ownership.ordinal()]++;
+            if (log.isDebugEnabled())
+            {
+                // Checked first, the item id would be boxed on every blocked click
+                log.debug("Blocked take of item {} ({})", event.getId(), ownership);
+            }
+        }
+        metrics.record(PluginMetrics.Handler.TAKE_GUARD, start);
+    }
+
+    public long getBlockedClicks()
+    {
+        return blockedClicks;
+    }
+
+    public long getBlockedClicks(GroundItemManager.ItemOwnership ownership)
+    {
+        return blockedByOwnership[ownership.ordinal()];
+    }
+}
@@ -0,0 +1,137 @@
+package com.ironmanqol;
+
+import javax.inject.Singleton;
+
+/**
+ * Latency histograms and event counters for the plugin's event handlers.
+ * Everything is recorded on the client thread into preallocated arrays.
+ */
+@Singleton
+public class PluginMetrics
+{
+    public enum Handler
+    {
+        ITEM_SPAWNED("Item spawned"),
+        ITEM_DESPAWNED("Item despawned"),
+        ACTOR_DEATH("Actor death"),
+        SHOP_UPDATE("Shop update"),
+        MENU_FILTER("Menu filter"),
+        TAKE_GUARD("Take guard"),
+        CONTAINER_DIFF("Container diff");
+
+        private final String displayName;
+
+        Handler(String displayName)
+        {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName()
+        {
+            return displayName;
+        }
+    }
+
+    private static final Handler[] HANDLERS = Handler.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[HANDLERS.length];
+    private final long[] eventsThisTick = new long[HANDLERS.length];
+    private final long[] eventsLastTick = new long[HANDLERS.length];
+
+    private long ticks;
+    private long maxEventsPerTick;
+
+    // Overlay render time, kept apart so frames don't count as events
+    private final LatencyHistogram overlayFrames = new LatencyHistogram();
+
+    public PluginMetrics()
+    {
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    public long start()
+    {
+        return System.nanoTime();
+    }
+
+    public void record(Handler handler, long startNanos)
+    {
+        int index = handler.ordinal();
+        histograms[index].record(System.nanoTime() - startNanos);
+        eventsThisTick[index]++;
+    }
+
+    /**
+     * Closes the per-tick event counts
+     */
+    public void onTick()
+    {
+        long total = 0;
+        for (int i = 0; i < eventsThisTick.length; i++)
+        {
+            eventsLastTick[i] = eventsThisTick[i];
+            total += eventsThisTick[i];
+            eventsThisTick[i] = 0;
+        }
+
+        if (total > maxEventsPerTick)
+        {
+            maxEventsPerTick = total;
+        }
+        ticks++;
+    }
+
+    public void recordOverlayFrame(long startNanos)
+    {
+        overlayFrames.record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram getOverlayFrameHistogram()
+    {
+        return overlayFrames;
+    }
+
+    public LatencyHistogram getHistogram(Handler handler)
+    {
+        return histograms[handler.ordinal()];
+    }
+
+    public long getEventsLastTick(Handler handler)
+    {
+        return eventsLastTick[handler.ordinal()];
+    }
+
+    /**
+     * Gets the average number of events per tick since the metrics were last reset
+     */
+    public double getAverageEventsPerTick(Handler handler)
+    {
+        return ticks == 0 ? 0 : (double) histograms[handler.ordinal()].getCount() / ticks;
+    }
+
+    public long getMaxEventsPerTick()
+    {
+        return maxEventsPerTick;
+    }
+
+    public long getTicks()
+    {
+        return ticks;
+    }
+
+    public void reset()
+    {
+        for (int i = 0; i < histograms.length; i++)
+        {
+            histograms[i].reset();
+            eventsThisTick[i] = 0;
+            eventsLastTick[i] = 0;
+        }
+        overlayFrames.reset();
+        ticks = 0;
+        maxEventsPerTick = 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ironmanqol;
+
+import net.runelite.api.Constants;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * The tracked ground items of the loaded scene, addressed by scene coordinates so per-tile lookups are array reads.
+ * Each tile points at the same item counts GroundItemManager keeps, which also know the tile's most notable ownership.
+ */
+public class SceneTileIndex
+{
+    private static final int SIZE = Constants.SCENE_SIZE;
+
+    // Plane/x/y -> the tile's items, null for none
+    private final TileItems[] tiles = new TileItems[Constants.MAX_Z * SIZE * SIZE];
+
+    private int baseX = Integer.MIN_VALUE;
+    private int baseY = Integer.MIN_VALUE;
+
+    /**
+     * Forgets every tile if the scene has moved since the index was filled
+     */
+    public void sync(int baseX, int baseY)
+    {
+        if (baseX != this.baseX || baseY != this.baseY)
+        {
+            clear();
+            this.baseX = baseX;
+            this.baseY = baseY;
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(tiles, null);
+    }
+
+    /**
+     * Points a scene tile at its items, or at nothing once they're all gone
+     */
+    public void put(int sceneX, int sceneY, int plane, TileItems tileItems)
+    {
+        int index = index(sceneX, sceneY, plane);
+        if (index >= 0)
+        {
+            tiles[index] = tileItems == null || tileItems.isEmpty() ? null : tileItems;
+        }
+    }
+
+    /**
+     * Drops the tiles whose items are in the given set, e.g. after GroundItemManager evicted them
+     */
+    public void removeAll(Set<TileItems> evicted)
+    {
+        if (evicted.isEmpty())
+        {
+            return;
+        }
+
+        for (int i = 0; i < tiles.length; i++)
+        {
+            if (tiles[i] != null && evicted.contains(tiles[i]))
+            {
+                tiles[i] = null;
+            }
+        }
+    }
+
+    public GroundItemManager.ItemOwnership getOwnership(int sceneX, int sceneY, int plane, int itemId)
+    {
+        int index = index(sceneX, sceneY, plane);
+        TileItems tileItems = index < 0 ? null : tiles[index];
+        return tileItems == null ? GroundItemManager.ItemOwnership.UNKNOWN : tileItems.getOwnership(itemId);
+    }
+
+    /**
+     * Gets the highest ranked ownership of the items on a tile, or null if there are none
+     */
+    public GroundItemManager.ItemOwnership getTileOwnership(int sceneX, int sceneY, int plane)
+    {
+        int index = index(sceneX, sceneY, plane);
+        TileItems tileItems = index < 0 ? null : tiles[index];
+        return tileItems == null ? null : tileItems.getTopOwnership();
+    }
+
+    private static int index(int sceneX, int sceneY, int plane)
+    {
+        if (sceneX < 0 || sceneY < 0 || sceneX >= SIZE || sceneY >= SIZE || plane < 0 || plane >= Constants.MAX_Z)
+        {
+            return -1;
+        }
+        return (plane * SIZE + sceneX) * SIZE + sceneY;
+    }
+}
@@ -0,0 +1,288 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.ItemComposition;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which shops originally stock each item, for answering "where can I buy this" without scanning every shop.
+ * Item ids map to sorted arrays of shop slots that are replaced, never modified, so the panel can read
+ * them from the Swing thread while the client thread and the data loader add shops.
+ */
+@Singleton
+public class ShopIndex
+{
+    private static final int[] NO_SHOPS = new int[0];
+
+    // Item names are looked up on the client thread, a few per tick
+    private static final int NAMES_PER_TICK = 200;
+
+    @Inject
+    private Client client;
+
+    // Shop key ("known:" + name or "shop:" + id) -> slot, and slot -> display name
+    private final Map<String, Integer> slotsByKey = new ConcurrentHashMap<>();
+    private final Map<Integer, String> shopNames = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    // Canonical item id -> sorted shop slots
+    private final Map<Integer, int[]> shopsByItem = new ConcurrentHashMap<>();
+
+    // Canonical item id -> name, the same in lower case for searching, and ids still waiting for theirs
+    private final Map<Integer, String> itemNames = new ConcurrentHashMap<>();
+    private final Map<Integer, String> searchNames = new ConcurrentHashMap<>();
+    private final Queue<Integer> unnamedItems = new ConcurrentLinkedQueue<>();
+
+    /**
+     * One item found by a search, with the shops stocking it
+     */
+    public static final class Result
+    {
+        private final int itemId;
+        private final String itemName;
+        private final List<String> shops;
+
+        private Result(int itemId, String itemName, List<String> shops)
+        {
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.shops = shops;
+        }
+
+        public int getItemId()
+        {
+            return itemId;
+        }
+
+        public String getItemName()
+        {
+            return itemName;
+        }
+
+        public List<String> getShops()
+        {
+            return shops;
+        }
+    }
+
+    /**
+     * Adds a shop from the known-shop dataset, safe to call from the loader thread
+     */
+    public void addKnownShop(String shopName, Collection<Integer> itemIds)
+    {
+        int slot = slot("known:" + shopName, shopName);
+        for (int itemId : itemIds)
+        {
+            add(itemId, slot);
+        }
+    }
+
+    /**
+     * Adds the original stock of a shop seen in game, on the client thread so noted ids can be canonicalized
+     */
+    public void addShopStock(int shopId, String displayName, Collection<Integer> itemIds)
+    {
+        int slot = slot("shop:" + shopId, displayName);
+        for (int itemId : itemIds)
+        {
+            add(canonicalize(itemId), slot);
+        }
+    }
+
+    /**
+     * Removes a shop seen in game, e.g. once ShopManager evicted it, dropping items no other shop stocks
+     */
+    public void removeShop(int shopId)
+    {
+        Integer slot = slotsByKey.remove("shop:" + shopId);
+        if (slot == null)
+        {
+            return;
+        }
+
+        shopNames.remove(slot);
+        for (Integer itemId : shopsByItem.keySet())
+        {
+            shopsByItem.computeIfPresent(itemId, (id, slots) ->
+            {
+                int at = Arrays.binarySearch(slots, slot);
+                if (at < 0)
+                {
+                    return slots;
+                }
+                if (slots.length == 1)
+                {
+                    itemNames.remove(id);
+                    searchNames.remove(id);
+                    return null;
+                }
+
+                // Copy on write, like adding
+                int[] shrunk = new int[slots.length - 1];
+                System.arraycopy(slots, 0, shrunk, 0, at);
+                System.arraycopy(slots, at + 1, shrunk, at, slots.length - at - 1);
+                return shrunk;
+            });
+        }
+    }
+
+    /**
+     * Gets the shops originally stocking an item, in the order they were first indexed
+     */
+    public List<String> getShops(int itemId)
+    {
+        int[] slots = shopsByItem.getOrDefault(itemId, NO_SHOPS);
+        List<String> shops = new ArrayList<>(slots.length);
+        for (int slot : slots)
+        {
+            shops.add(shopNames.get(slot));
+        }
+        return shops;
+    }
+
+    /**
+     * Finds items whose name contains the query, or whose id is the query, names starting with the query first
+     */
+    public List<Result> search(String query, int limit)
+    {
+        List<Result> results = new ArrayList<>();
+        String needle = query.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty())
+        {
+            return results;
+        }
+
+        Integer id = parseId(needle);
+        List<Integer> matches = new ArrayList<>();
+        for (Integer itemId : shopsByItem.keySet())
+        {
+            String name = searchNames.get(itemId);
+            if (id != null ? id.equals(itemId) : name != null && name.contains(needle))
+            {
+                matches.add(itemId);
+            }
+        }
+
+        matches.sort(Comparator.comparing((Integer itemId) -> !searchNames.getOrDefault(itemId, "").startsWith(needle))
+                .thenComparing(itemId -> searchNames.getOrDefault(itemId, "")));
+        for (int i = 0; i < matches.size() && i < limit; i++)
+        {
+            int itemId = matches.get(i);
+            String name = itemNames.get(itemId);
+            results.add(new Result(itemId, name != null ? name : "Item " + itemId, getShops(itemId)));
+        }
+        return results;
+    }
+
+    public int getItemCount()
+    {
+        return shopsByItem.size();
+    }
+
+    public int getShopCount()
+    {
+        return shopNames.size();
+    }
+
+    /**
+     * Items still waiting for their name to be looked up
+     */
+    public int getPendingNameCount()
+    {
+        return unnamedItems.size();
+    }
+
+    @Subscribe
+    public void onGameTick(GameTick event)
+    {
+        for (int i = 0; i < NAMES_PER_TICK; i++)
+        {
+            Integer itemId = unnamedItems.poll();
+            if (itemId == null)
+            {
+                return;
+            }
+            if (!shopsByItem.containsKey(itemId))
+            {
+                // Its shops were removed before it got a name
+                continue;
+            }
+
+            ItemComposition composition = client.getItemDefinition(itemId);
+            if (composition != null)
+            {
+                itemNames.put(itemId, composition.getName());
+                searchNames.put(itemId, composition.getName().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    private int slot(String key, String displayName)
+    {
+        return slotsByKey.computeIfAbsent(key, k ->
+        {
+            int slot = nextSlot.getAndIncrement();
+            shopNames.put(slot, displayName);
+            return slot;
+        });
+    }
+
+    private void add(int itemId, int slot)
+    {
+        shopsByItem.compute(itemId, (id, slots) ->
+        {
+            if (slots == null)
+            {
+                unnamedItems.add(id);
+                return new int[]{slot};
+            }
+
+            int at = Arrays.binarySearch(slots, slot);
+            if (at >= 0)
+            {
+                return slots;
+            }
+
+            // Copy on write, readers keep the array they already hold
+            int insert = -at - 1;
+            int[] grown = new int[slots.length + 1];
+            System.arraycopy(slots, 0, grown, 0, insert);
+            grown[insert] = slot;
+            System.arraycopy(slots, insert, grown, insert + 1, slots.length - insert);
+            return grown;
+        });
+    }
+
+    private int canonicalize(int itemId)
+    {
+        ItemComposition composition = client.getItemDefinition(itemId);
+        return composition != null && composition.getNote() != -1 ? composition.getLinkedNoteId() : itemId;
+    }
+
+    private static Integer parseId(String query)
+    {
+        for (int i = 0; i < query.length(); i++)
+        {
+            if (!Character.isDigit(query.charAt(i)))
+            {
+                return null;
+            }
+        }
+        return query.length() <= 9 ? Integer.parseInt(query) : null;
+    }
+}
@@ -5,6 +5,7 @@ import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.*;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.InterfaceID;
+import net.runelite.client.eventbus.Subscribe;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
@@ -19,15 +20,48 @@ public class ShopManager
     @Inject
     private Client client;
 
+    @Inject
+    private PluginMetrics metrics;
+
+    @Inject
+    private VisibilityRules visibilityRules;
+
+    @Inject
+    private ShopIndex shopIndex;
+
+    @Inject
+    private ClassificationRules classificationRules;
+
     // Track original shop inventories (shop ID -> set of original item IDs)
-    private final Map<Integer, Set<Integer>> originalShopStock = new ConcurrentHashMap<>();
+    private Map<Integer, Set<Integer>> originalShopStock = new ConcurrentHashMap<>();
     
     // Track shop inventories over time to detect player-sold items
-    private final Map<Integer, Map<Integer, ShopItemInfo>> currentShopStock = new ConcurrentHashMap<>();
+    private Map<Integer, Map<Integer, ShopItemInfo>> currentShopStock = new ConcurrentHashMap<>();
+    
+    // Tick each tracked shop was last opened on, for least recently used eviction
+    private Map<Integer, Integer> shopLastOpened = new ConcurrentHashMap<>();
+    
+    // Tick the open shop's stock was last re-read on a container change
+    private int lastStockRefreshTick = -1;
+    
+    // Shop openings that found a learned baseline, and ones that had to learn it
+    private long baselineHits;
+    private long baselineMisses;
+    
+    // Name and region of the last opened shop, for the classification rules
+    private String openShopName = "";
+    private int openShopRegion = -1;
     
     // Known shops and their standard inventories
     private final Map<String, Set<Integer>> knownShopStock = new ConcurrentHashMap<>();
 
+    // Shops beyond this many are dropped by cleanup, least recently opened first
+    private static final int MAX_TRACKED_SHOPS = 64;
+
+    // Rough retained size of the tracking maps, for the memory governor
+    private static final int BYTES_PER_SHOP = 320;
+    private static final int BYTES_PER_ITEM = 120;
+
     private static class ShopItemInfo 
     {
         final int itemId;
@@ -44,14 +78,49 @@ public class ShopManager
         }
     }
 
+    /**
+     * Shop baselines of a world we've hopped away from
+     */
+    public static final class Snapshot 
+    {
+        private final Map<Integer, Set<Integer>> originalShopStock;
+        private final Map<Integer, Map<Integer, ShopItemInfo>> currentShopStock;
+        private final Map<Integer, Integer> shopLastOpened;
+
+        private Snapshot(Map<Integer, Set<Integer>> originalShopStock, Map<Integer, Map<Integer, ShopItemInfo>> currentShopStock,
+                         Map<Integer, Integer> shopLastOpened) 
+        {
+            this.originalShopStock = originalShopStock;
+            this.currentShopStock = currentShopStock;
+            this.shopLastOpened = shopLastOpened;
+        }
+
+        public int size() 
+        {
+            int items = 0;
+            for (Map<Integer, ShopItemInfo> shopItems : currentShopStock.values()) 
+            {
+                items += shopItems.size();
+            }
+            for (Set<Integer> shopItems : originalShopStock.values()) 
+            {
+                items += shopItems.size();
+            }
+            return items;
+        }
+    }
+
     // Alternative approach if ShopOpened doesn't exist
+    @Subscribe
     public void onWidgetLoaded(WidgetLoaded event) 
     {
         // Check if shop interface was loaded
         if (event.getGroupId() == InterfaceID.SHOP) 
         {
             // Initialize shop tracking when shop interface opens
+            long start = metrics.start();
             initializeShopFromWidget();
+            metrics.record(PluginMetrics.Handler.SHOP_UPDATE, start);
         }
     }
 
@@ -66,13 +135,18 @@ public class ShopManager
         // Generate a shop ID based on widget contents or location
         int shopId = generateShopId();
         String shopName = getShopNameFromWidget();
+        openShopName = shopName;
+        openShopRegion = playerRegion();
         
-        System.out.println("Shop detected: " + shopName + " (ID: " + shopId + ")");
+        log.debug("Shop detected: {} (ID: {})", shopName, shopId);
+        shopLastOpened.put(shopId, client.getTickCount());
         
         // Initialize original stock tracking if this is the first time seeing this shop
         if (!originalShopStock.containsKey(shopId)) 
         {
+            baselineMisses++;
             Set<Integer> originalItems = new HashSet<>();
+            Set<Integer> stockedItems = new HashSet<>();
             Map<Integer, ShopItemInfo> currentItems = new HashMap<>();
             
             Widget[] shopItems = shopWidget.getChildren();
@@ -86,6 +160,10 @@ public class ShopManager
                         boolean isOriginal = isKnownShopItem(shopName, itemId);
                         
                         originalItems.add(itemId);
+                        if (isOriginal) 
+                        {
+                            stockedItems.add(itemId);
+                        }
                         currentItems.put(itemId, new ShopItemInfo(itemId, itemWidget.getItemQuantity(), isOriginal));
                     }
                 }
@@ -93,24 +171,56 @@ public class ShopManager
             
             originalShopStock.put(shopId, originalItems);
             currentShopStock.put(shopId, currentItems);
+            // Items players sold to the shop aren't where to buy them
+            shopIndex.addShopStock(shopId, describeShop(shopName), stockedItems);
         }
         else 
         {
             // Update current stock
+            baselineHits++;
             updateShopStockFromWidget(shopId);
         }
     }
 
+    /**
+     * Re-reads the open shop's stock once per tick when any container changed, e.g. after buying or selling
+     */
+    public void onContainerDiff(ContainerChangeCoalescer.Diff diff) 
+    {
+        int tick = client.getTickCount();
+        if (tick == lastStockRefreshTick || client.getWidget(InterfaceID.SHOP, 3) == null) 
+        {
+            return;
+        }
+
+        lastStockRefreshTick = tick;
+        long start = metrics.start();
+        updateShopStockFromWidget(generateShopId());
+        metrics.record(PluginMetrics.Handler.SHOP_UPDATE, start);
+    }
+
     private int generateShopId() 
     {
-        // Generate shop ID based on player location or shop interface content
+        // The shop's name and region, so it keeps its id wherever the player stands to open it
+        return 31 * getShopNameFromWidget().hashCode() + playerRegion();
+    }
+
+    private int playerRegion() 
+    {
         Player player = client.getLocalPlayer();
-        if (player != null) 
+        return player != null ? player.getWorldLocation().getRegionID() : -1;
+    }
+
+    private String describeShop(String shopName) 
+    {
+        // Many shops share a name, so the location tells them apart
+        Player player = client.getLocalPlayer();
+        if (player == null) 
         {
-            WorldPoint location = player.getWorldLocation();
-            return location.hashCode(); // Simple hash based on location
+            return shopName;
         }
-        return -1;
+        WorldPoint location = player.getWorldLocation();
+        return shopName + " (" + location.getX() + ", " + location.getY() + ")";
     }
 
     private String getShopNameFromWidget() 
@@ -141,31 +251,40 @@ public class ShopManager
             return;
         }
 
-        Set<Integer> currentItemIds = new HashSet<>();
         Widget shopWidget = client.getWidget(InterfaceID.SHOP, 3);
+        Widget[] itemWidgets = shopWidget != null && shopWidget.getChildren() != null ? shopWidget.getChildren() : new Widget[0];
         
-        if (shopWidget != null && shopWidget.getChildren() != null) 
+        for (Widget itemWidget : itemWidgets) 
         {
-            for (Widget itemWidget : shopWidget.getChildren()) 
+            if (itemWidget != null && itemWidget.getItemId() != -1) 
             {
-                if (itemWidget != null && itemWidget.getItemId() != -1) 
+                // Boxed once for the lookup and the insert
+                Integer itemId = itemWidget.getItemId();
+                
+                if (!current.containsKey(itemId)) 
                 {
-                    int itemId = itemWidget.getItemId();
-                    currentItemIds.add(itemId);
-                    
-                    if (!current.containsKey(itemId)) 
-                    {
-                        // New item appeared - likely sold by a player
-                        String shopName = getShopNameFromWidget();
-                        boolean isOriginal = isKnownShopItem(shopName, itemId);
-                        current.put(itemId, new ShopItemInfo(itemId, itemWidget.getItemQuantity(), isOriginal));
-                    }
+                    // New item appeared - likely sold by a player
+                    String shopName = getShopNameFromWidget();
+                    boolean isOriginal = isKnownShopItem(shopName, itemId);
+                    current.put(itemId, new ShopItemInfo(itemId, itemWidget.getItemQuantity(), isOriginal));
                 }
             }
         }
         
-        // Remove items that are no longer in the shop
-        current.keySet().retainAll(currentItemIds);
+        // Remove items that are no longer in the shop, a shop holds few enough items to scan the widgets
+        current.values().removeIf(info -> !containsItem(itemWidgets, info.itemId));
+    }
+
+    private static boolean containsItem(Widget[] itemWidgets, int itemId) 
+    {
+        for (Widget itemWidget : itemWidgets) 
+        {
+            if (itemWidget != null && itemWidget.getItemId() == itemId) 
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     public boolean canBuyItem(int shopId, int itemId) 
@@ -195,6 +314,13 @@ public class ShopManager
 
     private boolean isKnownShopItem(String shopName, int itemId) 
     {
+        // User rules beat both the dataset and the heuristics
+        ClassificationRules.Action action = classificationRules.matchShopStock(itemId, shopName, openShopRegion);
+        if (action != null) 
+        {
+            return action == ClassificationRules.Action.STOCK;
+        }
+        
         // Check against known shop inventories
         Set<Integer> knownItems = knownShopStock.get(shopName);
         if (knownItems != null) 
@@ -311,6 +437,58 @@ public class ShopManager
         knownShopStock.put("Ranging Shop", rangeShop);
         
         // Add more shop data as needed
+
+        knownShopStock.forEach(shopIndex::addKnownShop);
+    }
+
+    public int getTrackedShopCount() 
+    {
+        return originalShopStock.size();
+    }
+
+    /**
+     * Estimates the memory held by the shop baselines and current stock
+     */
+    public long estimateRetainedBytes() 
+    {
+        long bytes = (long) originalShopStock.size() * BYTES_PER_SHOP;
+        for (Map<Integer, ShopItemInfo> shopItems : currentShopStock.values()) 
+        {
+            bytes += (long) shopItems.size() * BYTES_PER_ITEM;
+        }
+        return bytes;
+    }
+
+    /**
+     * Forgets the shop that was opened longest ago, keeping at least the given number of shops
+     *
+     * @return whether a shop was evicted
+     */
+    public boolean evictLeastRecentlyOpened(int keep) 
+    {
+        if (originalShopStock.size() <= keep) 
+        {
+            return false;
+        }
+
+        Integer eldest = null;
+        int eldestOpened = Integer.MAX_VALUE;
+        for (Integer shopId : originalShopStock.keySet()) 
+        {
+            int opened = shopLastOpened.getOrDefault(shopId, 0);
+            if (opened < eldestOpened) 
+            {
+                eldest = shopId;
+                eldestOpened = opened;
+            }
+        }
+
+        originalShopStock.remove(eldest);
+        currentShopStock.remove(eldest);
+        shopLastOpened.remove(eldest);
+        shopIndex.removeShop(eldest);
+        log.debug("Evicted shop {}", eldest);
+        return true;
     }
 
     public Set<Integer> getOriginalStock(int shopId) 
@@ -322,27 +500,72 @@ public class ShopManager
     {
         originalShopStock.clear();
         currentShopStock.clear();
+        shopLastOpened.clear();
+        lastStockRefreshTick = -1;
+        openShopName = "";
+        openShopRegion = -1;
         // Don't clear knownShopStock as it's static data
     }
 
-    public void cleanup() 
+    /**
+     * Hands the current world's shop baselines over to the caller and starts tracking with empty maps
+     */
+    public Snapshot detachState() 
     {
-        // Clean up old shop data if needed
-        // For now, we keep all data as shops don't change frequently
+        Snapshot snapshot = new Snapshot(originalShopStock, currentShopStock, shopLastOpened);
+        originalShopStock = new ConcurrentHashMap<>();
+        currentShopStock = new ConcurrentHashMap<>();
+        shopLastOpened = new ConcurrentHashMap<>();
+        return snapshot;
     }
 
-    public int getCurrentShopId() 
+    /**
+     * Swaps previously detached shop baselines back in, keeping any shop learned since the detach
+     */
+    public void attachState(Snapshot snapshot) 
+    {
+        Map<Integer, Set<Integer>> learnedOriginal = originalShopStock;
+        Map<Integer, Map<Integer, ShopItemInfo>> learnedCurrent = currentShopStock;
+        Map<Integer, Integer> learnedLastOpened = shopLastOpened;
+
+        originalShopStock = snapshot.originalShopStock;
+        currentShopStock = snapshot.currentShopStock;
+        shopLastOpened = snapshot.shopLastOpened;
+
+        learnedOriginal.forEach(originalShopStock::putIfAbsent);
+        learnedCurrent.forEach(currentShopStock::putIfAbsent);
+        learnedLastOpened.forEach((shopId, opened) -> shopLastOpened.merge(shopId, opened, Math::max));
+    }
+
+    /**
+     * Drops the least recently opened shops beyond MAX_TRACKED_SHOPS
+     *
+     * @return the number of shops evicted
+     */
+    public int cleanup() 
     {
-        // Get the currently open shop ID
-        Widget shopWidget = client.getWidget(InterfaceID.SHOP, 2);
-        if (shopWidget != null) 
+        int evicted = 0;
+        while (evictLeastRecentlyOpened(MAX_TRACKED_SHOPS)) 
         {
-            // The shop ID might be stored in widget configuration
-            // This is a simplified approach - actual implementation would need
-            // to properly extract the shop ID from the interface
-            return shopWidget.getId();
+            evicted++;
         }
-        return -1;
+        return evicted;
+    }
+
+    public long getBaselineHits() 
+    {
+        return baselineHits;
+    }
+
+    public long getBaselineMisses() 
+    {
+        return baselineMisses;
+    }
+
+    public int getCurrentShopId() 
+    {
+        // Get the currently open shop ID, the same one its stock is tracked under
+        return client.getWidget(InterfaceID.SHOP, 3) != null ? generateShopId() : -1;
     }
 
     public List<Integer> getFilteredShopItems(int shopId) 
@@ -360,6 +583,15 @@ public class ShopManager
 
     public boolean shouldHideShopItem(int shopId, int itemId) 
     {
-        return !canBuyItem(shopId, itemId);
+        ClassificationRules.Action shown = classificationRules.matchShopVisibility(itemId, openShopName, openShopRegion);
+        if (shown != null) 
+        {
+            return shown == ClassificationRules.Action.HIDE;
+        }
+        
+        // A stock or sold rule overrides what was learned when the item first appeared
+        ClassificationRules.Action stock = classificationRules.matchShopStock(itemId, openShopName, openShopRegion);
+        boolean original = stock != null ? stock == ClassificationRules.Action.STOCK : canBuyItem(shopId, itemId);
+        return !visibilityRules.isShopItemVisible(original);
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.ironmanqol;
+
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.PluginPanel;
+import net.runelite.client.ui.components.IconTextField;
+
+import javax.inject.Inject;
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.util.List;
+
+/**
+ * Side panel answering "where can I buy this" from the shop index as the search is typed
+ */
+public class ShopSearchPanel extends PluginPanel
+{
+    private static final int MAX_RESULTS = 50;
+
+    private final ShopIndex shopIndex;
+    private final IconTextField searchBar = new IconTextField();
+    private final JPanel results = new JPanel();
+    private final JLabel status = new JLabel();
+
+    @Inject
+    private ShopSearchPanel(ShopIndex shopIndex)
+    {
+        this.shopIndex = shopIndex;
+
+        setLayout(new BorderLayout(0, 6));
+        setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        setBackground(ColorScheme.DARK_GRAY_COLOR);
+
+        searchBar.setIcon(IconTextField.Icon.SEARCH);
+        searchBar.setPreferredSize(new Dimension(PANEL_WIDTH - 20, 30));
+        searchBar.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        searchBar.setHoverBackgroundColor(ColorScheme.DARKER_GRAY_HOVER_COLOR);
+        searchBar.getDocument().addDocumentListener(new DocumentListener()
+        {
+            @Override
+            public void insertUpdate(DocumentEvent e)
+            {
+                update();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e)
+            {
+                update();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e)
+            {
+                update();
+            }
+        });
+
+        results.setLayout(new BoxLayout(results, BoxLayout.Y_AXIS));
+        results.setBackground(ColorScheme.DARK_GRAY_COLOR);
+        status.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+
+        add(searchBar, BorderLayout.NORTH);
+        add(results, BorderLayout.CENTER);
+        add(status, BorderLayout.SOUTH);
+    }
+
+    @Override
+    public void onActivate()
+    {
+        update();
+    }
+
+    private void update()
+    {
+        results.removeAll();
+        String query = searchBar.getText();
+        if (query.trim().isEmpty())
+        {
+            status.setText(shopIndex.getItemCount() + " items in " + shopIndex.getShopCount() + " shops");
+        }
+        else
+        {
+            List<ShopIndex.Result> found = shopIndex.search(query, MAX_RESULTS);
+            for (ShopIndex.Result result : found)
+            {
+                results.add(row(result));
+            }
+            status.setText(found.isEmpty() ? "No shop stocks that" : found.size() + (found.size() == MAX_RESULTS ? "+" : "") + " items");
+        }
+        results.revalidate();
+        results.repaint();
+    }
+
+    private static JPanel row(ShopIndex.Result result)
+    {
+        JPanel row = new JPanel(new BorderLayout());
+        row.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        row.setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+
+        JLabel item = new JLabel(result.getItemName());
+        item.setForeground(ColorScheme.BRAND_ORANGE);
+        row.add(item, BorderLayout.NORTH);
+
+        JLabel shops = new JLabel("<html>" + String.join("<br>", result.getShops()) + "</html>");
+        shops.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+        row.add(shops, BorderLayout.CENTER);
+        return row;
+    }
+}
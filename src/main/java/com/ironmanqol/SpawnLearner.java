@@ -0,0 +1,381 @@
+package com.ironmanqol;
+
+import net.runelite.api.coords.WorldPoint;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Learns static spawns from unowned items that keep reappearing on the same tile after the same interval.
+ * Candidates live in small fixed-size arrays per region, so learning is a bounded scan and memory is capped per region.
+ * Promoted spawns are saved to the config and loaded with the rest of the plugin data.
+ */
+@Slf4j
+@Singleton
+public class SpawnLearner
+{
+    // Consistent respawns before a tile counts as a static spawn, and the respawns at which confidence is full
+    static final int PROMOTE_CYCLES = 3;
+    private static final int FULL_CONFIDENCE_CYCLES = 10;
+
+    static final int MAX_SPAWNS_PER_REGION = 64;
+
+    // Shorter gaps are scene reloads re-sending the item, longer ones aren't a respawn cycle
+    private static final int MIN_RESPAWN_TICKS = 10;
+    private static final int MAX_RESPAWN_TICKS = 1000;
+    private static final int RESPAWN_TOLERANCE_TICKS = 2;
+
+    // Items appearing this close to a dying NPC, this soon after, are its drops
+    private static final int NPC_DEATH_TICKS = 2;
+    private static final int NPC_DEATH_RADIUS = 1;
+    private static final int RECENT_NPC_DEATHS = 16;
+
+    private static final int NOT_GONE = -1;
+
+    @Inject
+    private IronmanQolConfig config;
+
+    private final Map<Integer, RegionSpawns> regions = new ConcurrentHashMap<>();
+
+    // Spawns come in bursts from one region, so the last one is kept to skip boxing the region id
+    private int lastRegionId = -1;
+    private RegionSpawns lastRegion;
+
+    private final WorldPoint[] npcDeathLocations = new WorldPoint[RECENT_NPC_DEATHS];
+    private final int[] npcDeathTicks = new int[RECENT_NPC_DEATHS];
+    private int npcDeathHead;
+
+    // Learning waits for the saved spawns, so the client thread never races the loader
+    private volatile boolean loaded;
+    private boolean dirty;
+
+    /**
+     * Candidate spawns of one region in parallel arrays, keyed by item id and position within the region
+     */
+    private static final class RegionSpawns
+    {
+        final long[] keys = new long[MAX_SPAWNS_PER_REGION];
+        final int[] goneTicks = new int[MAX_SPAWNS_PER_REGION];
+        final short[] intervals = new short[MAX_SPAWNS_PER_REGION];
+        final byte[] cycles = new byte[MAX_SPAWNS_PER_REGION];
+        int size;
+
+        int find(long key)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                if (keys[i] == key)
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a candidate, replacing the weakest unpromoted one when full, or returns -1 if every slot is promoted
+         */
+        int add(long key)
+        {
+            int slot = size;
+            if (size == MAX_SPAWNS_PER_REGION)
+            {
+                slot = -1;
+                for (int i = 0; i < size; i++)
+                {
+                    if (cycles[i] < PROMOTE_CYCLES && (slot == -1 || cycles[i] < cycles[slot]))
+                    {
+                        slot = i;
+                    }
+                }
+                if (slot == -1)
+                {
+                    return -1;
+                }
+            }
+            else
+            {
+                size++;
+            }
+
+            keys[slot] = key;
+            goneTicks[slot] = NOT_GONE;
+            intervals[slot] = 0;
+            cycles[slot] = 0;
+            return slot;
+        }
+    }
+
+    /**
+     * Records an unowned item appearing, returns whether its tile is a learned static spawn for it
+     */
+    public boolean onSpawn(WorldPoint location, int itemId, int tick)
+    {
+        if (!loaded || !config.learnStaticSpawns())
+        {
+            return false;
+        }
+
+        RegionSpawns region = region(location.getRegionID(), true);
+        long key = key(location, itemId);
+        int i = region.find(key);
+        if (isNpcDrop(location, tick))
+        {
+            // Not a spawn, and whatever cycle the tile was on is broken
+            if (i != -1 && region.cycles[i] < PROMOTE_CYCLES)
+            {
+                region.cycles[i] = 0;
+            }
+            return i != -1 && region.cycles[i] >= PROMOTE_CYCLES;
+        }
+
+        if (i == -1)
+        {
+            region.add(key);
+            return false;
+        }
+
+        int gone = region.goneTicks[i];
+        region.goneTicks[i] = NOT_GONE;
+        int interval = tick - gone;
+        if (gone == NOT_GONE || interval < MIN_RESPAWN_TICKS)
+        {
+            return region.cycles[i] >= PROMOTE_CYCLES;
+        }
+
+        if (interval <= MAX_RESPAWN_TICKS && region.cycles[i] > 0
+                && Math.abs(interval - region.intervals[i]) <= RESPAWN_TOLERANCE_TICKS)
+        {
+            if (region.cycles[i] < Byte.MAX_VALUE)
+            {
+                region.cycles[i]++;
+            }
+            if (region.cycles[i] == PROMOTE_CYCLES)
+            {
+                // Only a newly promoted spawn changes what's saved, every later respawn of it would save the same
+                dirty = true;
+                log.debug("Learned static spawn of item {} at {}, respawning every {} ticks", itemId, location, interval);
+            }
+        }
+        else if (region.cycles[i] >= PROMOTE_CYCLES)
+        {
+            // A promoted spawn that missed its cycle loses some confidence, but stays a spawn
+            region.cycles[i] = (byte) Math.max(PROMOTE_CYCLES, region.cycles[i] - 1);
+        }
+        else if (interval <= MAX_RESPAWN_TICKS)
+        {
+            // The first measured gap starts a new cycle
+            region.intervals[i] = (short) interval;
+            region.cycles[i] = 1;
+        }
+        else
+        {
+            region.cycles[i] = 0;
+        }
+
+        return region.cycles[i] >= PROMOTE_CYCLES;
+    }
+
+    /**
+     * Records an item leaving its tile, starting the wait for its respawn
+     */
+    public void onDespawn(WorldPoint location, int itemId, int tick)
+    {
+        if (!loaded)
+        {
+            return;
+        }
+
+        RegionSpawns region = region(location.getRegionID(), false);
+        int i = region != null ? region.find(key(location, itemId)) : -1;
+        if (i != -1)
+        {
+            region.goneTicks[i] = tick;
+        }
+    }
+
+    public void onNpcDeath(WorldPoint location, int tick)
+    {
+        npcDeathLocations[npcDeathHead] = location;
+        npcDeathTicks[npcDeathHead] = tick;
+        npcDeathHead = (npcDeathHead + 1) % RECENT_NPC_DEATHS;
+    }
+
+    /**
+     * Forgets the recent NPC deaths and the items waiting to respawn, which are counted in the session's ticks.
+     * The learned cycles are kept, they're the same for every account.
+     */
+    public void resetPending()
+    {
+        Arrays.fill(npcDeathLocations, null);
+        npcDeathHead = 0;
+        for (RegionSpawns region : regions.values())
+        {
+            Arrays.fill(region.goneTicks, 0, region.size, NOT_GONE);
+        }
+    }
+
+    /**
+     * Gets how sure the learner is that the item spawns on the tile, from 0 to 1
+     */
+    public double getConfidence(WorldPoint location, int itemId)
+    {
+        RegionSpawns region = regions.get(location.getRegionID());
+        int i = region != null ? region.find(key(location, itemId)) : -1;
+        return i == -1 ? 0 : Math.min(1.0, (double) region.cycles[i] / FULL_CONFIDENCE_CYCLES);
+    }
+
+    public int getCandidateCount(int regionId)
+    {
+        RegionSpawns region = regions.get(regionId);
+        return region != null ? region.size : 0;
+    }
+
+    public int getLearnedCount()
+    {
+        int learned = 0;
+        for (RegionSpawns region : regions.values())
+        {
+            for (int i = 0; i < region.size; i++)
+            {
+                if (region.cycles[i] >= PROMOTE_CYCLES)
+                {
+                    learned++;
+                }
+            }
+        }
+        return learned;
+    }
+
+    /**
+     * Loads the saved spawns, handing each one to the consumer, and starts learning
+     */
+    public void load(BiConsumer<WorldPoint, Integer> learned)
+    {
+        String saved = config.learnedSpawns();
+        if (saved != null && !saved.isEmpty())
+        {
+            // region:key.cycles.interval,key.cycles.interval;region:...
+            for (String regionEntry : saved.split(";"))
+            {
+                try
+                {
+                    loadRegion(regionEntry, learned);
+                }
+                catch (RuntimeException e)
+                {
+                    log.warn("Skipping unreadable learned spawns: {}", regionEntry, e);
+                }
+            }
+        }
+
+        loaded = true;
+        log.debug("Loaded {} learned static spawns", getLearnedCount());
+    }
+
+    /**
+     * Saves the promoted spawns if any were newly promoted since the last save
+     */
+    public void saveIfDirty()
+    {
+        if (!dirty)
+        {
+            return;
+        }
+
+        StringBuilder saved = new StringBuilder();
+        for (Map.Entry<Integer, RegionSpawns> entry : regions.entrySet())
+        {
+            RegionSpawns region = entry.getValue();
+            boolean regionStarted = false;
+            for (int i = 0; i < region.size; i++)
+            {
+                if (region.cycles[i] < PROMOTE_CYCLES)
+                {
+                    continue;
+                }
+
+                if (regionStarted)
+                {
+                    saved.append(',');
+                }
+                else
+                {
+                    saved.append(saved.length() > 0 ? ";" : "").append(entry.getKey()).append(':');
+                    regionStarted = true;
+                }
+                saved.append(Long.toString(region.keys[i], 36)).append('.')
+                        .append(region.cycles[i]).append('.')
+                        .append(region.intervals[i]);
+            }
+        }
+
+        config.learnedSpawns(saved.toString());
+        dirty = false;
+    }
+
+    private void loadRegion(String regionEntry, BiConsumer<WorldPoint, Integer> learned)
+    {
+        int colon = regionEntry.indexOf(':');
+        int regionId = Integer.parseInt(regionEntry.substring(0, colon));
+        RegionSpawns region = regions.computeIfAbsent(regionId, id -> new RegionSpawns());
+        for (String spawn : regionEntry.substring(colon + 1).split(","))
+        {
+            String[] fields = spawn.split("\\.");
+            long key = Long.parseLong(fields[0], 36);
+            int i = region.find(key);
+            if (i == -1 && (i = region.add(key)) == -1)
+            {
+                break;
+            }
+            region.cycles[i] = Byte.parseByte(fields[1]);
+            region.intervals[i] = Short.parseShort(fields[2]);
+
+            int x = (int) (key >> 6 & 0x3F);
+            int y = (int) (key & 0x3F);
+            int plane = (int) (key >> 12 & 0x3);
+            learned.accept(WorldPoint.fromRegion(regionId, x, y, plane), (int) (key >> 14));
+        }
+    }
+
+    private RegionSpawns region(int regionId, boolean create)
+    {
+        if (regionId == lastRegionId)
+        {
+            return lastRegion;
+        }
+
+        RegionSpawns region = create ? regions.computeIfAbsent(regionId, id -> new RegionSpawns()) : regions.get(regionId);
+        if (region != null)
+        {
+            lastRegionId = regionId;
+            lastRegion = region;
+        }
+        return region;
+    }
+
+    private boolean isNpcDrop(WorldPoint location, int tick)
+    {
+        for (int i = 0; i < RECENT_NPC_DEATHS; i++)
+        {
+            WorldPoint death = npcDeathLocations[i];
+            if (death != null && tick - npcDeathTicks[i] <= NPC_DEATH_TICKS
+                    && death.distanceTo(location) <= NPC_DEATH_RADIUS)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Item id, plane and position within the region packed into one key
+    private static long key(WorldPoint location, int itemId)
+    {
+        return (long) itemId << 14 | (location.getPlane() & 0x3) << 12 | location.getRegionX() << 6 | location.getRegionY();
+    }
+}
@@ -0,0 +1,338 @@
+package com.ironmanqol;
+
+import java.util.Arrays;
+
+/**
+ * The items tracked on one tile, counted per item id and ownership, so two stacks of the same item
+ * with different owners are kept apart and picking up one of them leaves the other tracked.
+ * Piles can hold hundreds of item ids, e.g. after a PvP death, so ids are found through an open-addressed
+ * table of slots, and everything is kept in primitive arrays so nothing is boxed.
+ */
+public class TileItems
+{
+    private static final GroundItemManager.ItemOwnership[] OWNERSHIPS = GroundItemManager.ItemOwnership.values();
+    private static final int KINDS = OWNERSHIPS.length;
+
+    // Own drops win over own loot, then static spawns, then everything else
+    private static final int[] RANK = new int[KINDS];
+
+    // Ownerships that are carried over when the item is sent again, highest rank first
+    private static final GroundItemManager.ItemOwnership[] KEPT = {
+            GroundItemManager.ItemOwnership.PLAYER_DROPPED,
+            GroundItemManager.ItemOwnership.PLAYER_LOOT,
+            GroundItemManager.ItemOwnership.STATIC_SPAWN
+    };
+
+    static
+    {
+        RANK[GroundItemManager.ItemOwnership.PLAYER_DROPPED.ordinal()] = 4;
+        RANK[GroundItemManager.ItemOwnership.PLAYER_LOOT.ordinal()] = 3;
+        RANK[GroundItemManager.ItemOwnership.STATIC_SPAWN.ordinal()] = 2;
+        RANK[GroundItemManager.ItemOwnership.OTHER_PLAYER.ordinal()] = 1;
+    }
+
+    // Slot -> item id, and slot x ownership -> count
+    private int[] itemIds = new int[2];
+    private int[] counts = new int[2 * KINDS];
+    private int slots;
+    private int size;
+
+    // Item id hash -> slot + 1, 0 for an empty entry, kept at most half full
+    private int[] index = new int[4];
+
+    // Ordinal + 1 of the highest ranked ownership on the tile, 0 for none
+    private int top;
+
+    public void add(int itemId, GroundItemManager.ItemOwnership ownership)
+    {
+        add(itemId, ownership, 1);
+    }
+
+    /**
+     * Removes one item with the given ownership
+     *
+     * @return false if there was none
+     */
+    public boolean remove(int itemId, GroundItemManager.ItemOwnership ownership)
+    {
+        int slot = slot(itemId);
+        if (slot < 0 || counts[slot * KINDS + ownership.ordinal()] == 0)
+        {
+            return false;
+        }
+
+        counts[slot * KINDS + ownership.ordinal()]--;
+        size--;
+        if (isSlotEmpty(slot))
+        {
+            removeSlot(slot);
+        }
+        if (top == ownership.ordinal() + 1)
+        {
+            top = highest();
+        }
+        return true;
+    }
+
+    /**
+     * Removes one item that should keep its ownership when it's sent again, the highest ranked one first
+     *
+     * @return the ownership removed, or null if every item with that id belongs to someone else
+     */
+    public GroundItemManager.ItemOwnership takeKept(int itemId)
+    {
+        int slot = slot(itemId);
+        if (slot < 0)
+        {
+            return null;
+        }
+
+        for (GroundItemManager.ItemOwnership ownership : KEPT)
+        {
+            if (counts[slot * KINDS + ownership.ordinal()] > 0)
+            {
+                remove(itemId, ownership);
+                return ownership;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the highest ranked ownership among the items with the given id, so a tile that holds
+     * an own item and someone else's of the same id lets the own one be taken
+     */
+    public GroundItemManager.ItemOwnership getOwnership(int itemId)
+    {
+        int slot = slot(itemId);
+        if (slot < 0)
+        {
+            return GroundItemManager.ItemOwnership.UNKNOWN;
+        }
+
+        int highest = -1;
+        for (int kind = 0; kind < KINDS; kind++)
+        {
+            if (counts[slot * KINDS + kind] > 0 && (highest == -1 || RANK[kind] > RANK[highest]))
+            {
+                highest = kind;
+            }
+        }
+        return highest == -1 ? GroundItemManager.ItemOwnership.UNKNOWN : OWNERSHIPS[highest];
+    }
+
+    public int count(int itemId, GroundItemManager.ItemOwnership ownership)
+    {
+        int slot = slot(itemId);
+        return slot < 0 ? 0 : counts[slot * KINDS + ownership.ordinal()];
+    }
+
+    /**
+     * Gets the highest ranked ownership on the tile, or null if it's empty
+     */
+    public GroundItemManager.ItemOwnership getTopOwnership()
+    {
+        return top == 0 ? null : OWNERSHIPS[top - 1];
+    }
+
+    /**
+     * Whether the tile holds any of the player's own drops or loot
+     */
+    public boolean hasOwnItems()
+    {
+        return top == GroundItemManager.ItemOwnership.PLAYER_DROPPED.ordinal() + 1
+                || top == GroundItemManager.ItemOwnership.PLAYER_LOOT.ordinal() + 1;
+    }
+
+    /**
+     * Adds every item of another tile, e.g. when merging state restored after a hop
+     */
+    public void addAll(TileItems other)
+    {
+        for (int slot = 0; slot < other.slots; slot++)
+        {
+            for (int kind = 0; kind < KINDS; kind++)
+            {
+                int count = other.counts[slot * KINDS + kind];
+                if (count > 0)
+                {
+                    add(other.itemIds[slot], OWNERSHIPS[kind], count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the visitor once per item id and ownership present, with how many there are
+     */
+    public void forEach(Visitor visitor)
+    {
+        for (int slot = 0; slot < slots; slot++)
+        {
+            for (int kind = 0; kind < KINDS; kind++)
+            {
+                int count = counts[slot * KINDS + kind];
+                if (count > 0)
+                {
+                    visitor.visit(itemIds[slot], OWNERSHIPS[kind], count);
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Number of items on the tile
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Number of distinct item ids on the tile
+     */
+    public int getItemIdCount()
+    {
+        return slots;
+    }
+
+    @FunctionalInterface
+    public interface Visitor
+    {
+        void visit(int itemId, GroundItemManager.ItemOwnership ownership, int count);
+    }
+
+    private void add(int itemId, GroundItemManager.ItemOwnership ownership, int count)
+    {
+        int slot = slot(itemId);
+        if (slot < 0)
+        {
+            slot = addSlot(itemId);
+        }
+
+        counts[slot * KINDS + ownership.ordinal()] += count;
+        size += count;
+        if (top == 0 || RANK[ownership.ordinal()] > RANK[top - 1])
+        {
+            top = ownership.ordinal() + 1;
+        }
+    }
+
+    private int slot(int itemId)
+    {
+        int entry = entry(itemId);
+        return entry < 0 ? -1 : index[entry] - 1;
+    }
+
+    /**
+     * Gets the index entry of the item id, or -1 if it has no slot
+     */
+    private int entry(int itemId)
+    {
+        int mask = index.length - 1;
+        for (int entry = hash(itemId) & mask; index[entry] != 0; entry = (entry + 1) & mask)
+        {
+            if (itemIds[index[entry] - 1] == itemId)
+            {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private int addSlot(int itemId)
+    {
+        if (slots == itemIds.length)
+        {
+            itemIds = Arrays.copyOf(itemIds, slots * 2);
+            counts = Arrays.copyOf(counts, slots * 2 * KINDS);
+        }
+        itemIds[slots] = itemId;
+        if ((slots + 1) * 2 > index.length)
+        {
+            index = new int[index.length * 2];
+            for (int slot = 0; slot < slots; slot++)
+            {
+                insert(slot);
+            }
+        }
+        insert(slots);
+        return slots++;
+    }
+
+    private void insert(int slot)
+    {
+        int mask = index.length - 1;
+        int entry = hash(itemIds[slot]) & mask;
+        while (index[entry] != 0)
+        {
+            entry = (entry + 1) & mask;
+        }
+        index[entry] = slot + 1;
+    }
+
+    private void removeSlot(int slot)
+    {
+        int mask = index.length - 1;
+        int hole = entry(itemIds[slot]);
+
+        // Shift later entries of the probe run back into the hole, unless that would put them before their hash
+        for (int entry = (hole + 1) & mask; index[entry] != 0; entry = (entry + 1) & mask)
+        {
+            int home = hash(itemIds[index[entry] - 1]) & mask;
+            if (((entry - home) & mask) >= ((entry - hole) & mask))
+            {
+                index[hole] = index[entry];
+                hole = entry;
+            }
+        }
+        index[hole] = 0;
+
+        // The last slot takes the removed one's place
+        int last = --slots;
+        if (slot != last)
+        {
+            index[entry(itemIds[last])] = slot + 1;
+        }
+        itemIds[slot] = itemIds[last];
+        System.arraycopy(counts, last * KINDS, counts, slot * KINDS, KINDS);
+        Arrays.fill(counts, last * KINDS, last * KINDS + KINDS, 0);
+    }
+
+    private static int hash(int itemId)
+    {
+        int hash = itemId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean isSlotEmpty(int slot)
+    {
+        for (int kind = 0; kind < KINDS; kind++)
+        {
+            if (counts[slot * KINDS + kind] > 0)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int highest()
+    {
+        int highest = -1;
+        for (int i = 0; i < slots * KINDS; i++)
+        {
+            int kind = i % KINDS;
+            if (counts[i] > 0 && (highest == -1 || RANK[kind] > RANK[highest]))
+            {
+                highest = kind;
+            }
+        }
+        return highest + 1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ironmanqol;
+
+import net.runelite.api.Client;
+import net.runelite.api.Perspective;
+import net.runelite.api.coords.LocalPoint;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.awt.Polygon;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canvas polygons of scene tiles, reused across frames until the camera, viewport or scene moves
+ */
+@Singleton
+public class TilePolygonCache
+{
+    // Stands in for tiles that don't project onto the canvas, so they aren't projected again either
+    private static final Polygon OFF_SCREEN = new Polygon();
+
+    @Inject
+    private Client client;
+
+    // Packed plane/scene x/scene y -> polygon
+    private final Map<Integer, Polygon> polygons = new HashMap<>();
+
+    private long cameraState;
+    private long hits;
+    private long misses;
+
+    /**
+     * Call once per frame before any lookups, drops every polygon if the view changed
+     */
+    public void beginFrame()
+    {
+        long state = cameraState();
+        if (state != cameraState)
+        {
+            polygons.clear();
+            cameraState = state;
+        }
+    }
+
+    /**
+     * Gets the canvas polygon of a tile on the current plane, or null if it isn't on the canvas
+     */
+    public Polygon get(LocalPoint point)
+    {
+        int key = key(point);
+        Polygon polygon = polygons.get(key);
+        if (polygon == null)
+        {
+            misses++;
+            polygon = Perspective.getCanvasTilePoly(client, point);
+            if (polygon == null)
+            {
+                polygon = OFF_SCREEN;
+            }
+            polygons.put(key, polygon);
+        }
+        else
+        {
+            hits++;
+        }
+        return polygon != OFF_SCREEN ? polygon : null;
+    }
+
+    /**
+     * Seeds the polygon of a tile for the current view, for driving overlays without a renderer
+     */
+    void put(LocalPoint point, Polygon polygon)
+    {
+        polygons.put(key(point), polygon);
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    public long getMisses()
+    {
+        return misses;
+    }
+
+    private int key(LocalPoint point)
+    {
+        return client.getPlane() << 16 | point.getSceneX() << 8 | point.getSceneY();
+    }
+
+    private long cameraState()
+    {
+        long state = 17;
+        state = state * 31 + client.getCameraX();
+        state = state * 31 + client.getCameraY();
+        state = state * 31 + client.getCameraZ();
+        state = state * 31 + client.getCameraPitch();
+        state = state * 31 + client.getCameraYaw();
+        state = state * 31 + client.getScale();
+        state = state * 31 + client.getViewportWidth();
+        state = state * 31 + client.getViewportHeight();
+        state = state * 31 + client.getViewportXOffset();
+        state = state * 31 + client.getViewportYOffset();
+        state = state * 31 + client.getPlane();
+        state = state * 31 + client.getBaseX();
+        return state * 31 + client.getBaseY();
+    }
+}
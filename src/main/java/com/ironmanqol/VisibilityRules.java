@@ -0,0 +1,153 @@
+package com.ironmanqol;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * The config toggles compiled into a lookup table, so hot paths never call through the config proxy.
+ * The table is rebuilt on config changes.
+ * Until the plugin data has loaded every decision allows, as ownership can't be told apart yet.
+ * User classification rules override the ownership decision for the items they match.
+ */
+@Slf4j
+@Singleton
+public class VisibilityRules
+{
+    public enum Context
+    {
+        // Whether "Take" stays a normal, left-clickable option
+        TAKE_OPTION,
+        // Whether clicking "Take" goes through
+        TAKE_CLICK
+    }
+
+    private static final GroundItemManager.ItemOwnership[] OWNERSHIPS = GroundItemManager.ItemOwnership.values();
+
+    private final IronmanQolConfig config;
+    private final ClassificationRules classificationRules;
+
+    private volatile Table table;
+    private volatile boolean dataLoaded;
+
+    private static final class Table
+    {
+        // Context x ownership -> allowed
+        final boolean[] allowed = new boolean[Context.values().length * OWNERSHIPS.length];
+        // Context -> whether a hide rule takes effect there, the click toggles still apply to rules
+        final boolean[] enforced = new boolean[Context.values().length];
+        final boolean groundRules;
+        final boolean filtersTakeOption;
+        final boolean blocksTakeClicks;
+        final boolean originalShopItemVisible;
+        final boolean playerSoldShopItemVisible;
+
+        Table(IronmanQolConfig config, ClassificationRules rules, boolean dataLoaded)
+        {
+            groundRules = dataLoaded && rules.hasGroundRules();
+            enforced[Context.TAKE_OPTION.ordinal()] = dataLoaded && config.removeClickOptions();
+            enforced[Context.TAKE_CLICK.ordinal()] = dataLoaded && config.blockTakeClicks();
+
+            boolean hideGroundItems = dataLoaded && config.hideGroundItems();
+            boolean filtersByOwnership = hideGroundItems && enforced[Context.TAKE_OPTION.ordinal()];
+            filtersTakeOption = filtersByOwnership || groundRules && enforced[Context.TAKE_OPTION.ordinal()];
+            blocksTakeClicks = enforced[Context.TAKE_CLICK.ordinal()];
+
+            for (GroundItemManager.ItemOwnership ownership : OWNERSHIPS)
+            {
+                // Only a positive classification as someone else's item gets in the way
+                boolean takeAllowed = ownership != GroundItemManager.ItemOwnership.OTHER_PLAYER;
+                boolean shown;
+                switch (ownership)
+                {
+                    case PLAYER_DROPPED:
+                        shown = config.showOwnDrops();
+                        break;
+                    case STATIC_SPAWN:
+                        shown = config.showStaticSpawns();
+                        break;
+                    default:
+                        shown = takeAllowed;
+                        break;
+                }
+
+                // The show toggles only move the option down the menu, a click on an item the player may take goes through
+                allowed[index(Context.TAKE_OPTION, ownership)] = !filtersByOwnership || shown;
+                allowed[index(Context.TAKE_CLICK, ownership)] = !blocksTakeClicks || takeAllowed;
+            }
+
+            boolean hideShopItems = dataLoaded && config.hideShopItems();
+            originalShopItemVisible = !hideShopItems || config.showOriginalStock();
+            playerSoldShopItemVisible = !hideShopItems;
+        }
+    }
+
+    @Inject
+    private VisibilityRules(IronmanQolConfig config, ClassificationRules classificationRules)
+    {
+        this.config = config;
+        this.classificationRules = classificationRules;
+        this.table = new Table(config, classificationRules, false);
+    }
+
+    /**
+     * Recompiles the table from the config and compiled rules
+     */
+    public synchronized void rebuild()
+    {
+        table = new Table(config, classificationRules, dataLoaded);
+        log.debug("Visibility rules rebuilt");
+    }
+
+    /**
+     * Switches from allowing everything to the configured decisions, called from the loader thread
+     */
+    public void onDataLoaded()
+    {
+        dataLoaded = true;
+        rebuild();
+    }
+
+    /**
+     * Whether the ownership's decision lets the item through, unless a matching rule decides instead
+     */
+    public boolean isAllowed(Context context, GroundItemManager.ItemOwnership ownership, int itemId, int regionId)
+    {
+        Table current = table;
+        ClassificationRules.Action action = current.groundRules
+                ? classificationRules.matchGroundItem(itemId, ownership, regionId) : null;
+        if (action == null)
+        {
+            return current.allowed[index(context, ownership)];
+        }
+        return action == ClassificationRules.Action.SHOW || !current.enforced[context.ordinal()];
+    }
+
+    /**
+     * Whether any "Take" option can be deprioritized at all, so the menu filter can skip the lookup
+     */
+    public boolean filtersTakeOption()
+    {
+        return table.filtersTakeOption;
+    }
+
+    /**
+     * Whether any "Take" click can be consumed at all, so the pickup guard can skip the lookup
+     */
+    public boolean blocksTakeClicks()
+    {
+        return table.blocksTakeClicks;
+    }
+
+    public boolean isShopItemVisible(boolean originalStock)
+    {
+        Table current = table;
+        return originalStock ? current.originalShopItemVisible : current.playerSoldShopItemVisible;
+    }
+
+    private static int index(Context context, GroundItemManager.ItemOwnership ownership)
+    {
+        return context.ordinal() * OWNERSHIPS.length + ownership.ordinal();
+    }
+}
@@ -0,0 +1,163 @@
+package com.ironmanqol;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the learned ground item and shop state of recently visited worlds,
+ * so hopping back to a world restores it instead of relearning from scratch.
+ */
+@Slf4j
+@Singleton
+public class WorldStateCache
+{
+    // Rough per-entry cost of the tracking maps, used for the optional memory cap
+    private static final int BYTES_PER_ENTRY = 96;
+
+    @Inject
+    private GroundItemManager groundItemManager;
+
+    @Inject
+    private ShopManager shopManager;
+
+    @Inject
+    private IronmanQolConfig config;
+
+    // World id -> state, in access order so the eldest entry is the least recently visited world
+    private final LinkedHashMap<Integer, WorldSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int currentWorld = -1;
+    private WorldSnapshot leaving;
+    private long retainedBytes;
+
+    private int hits;
+    private int misses;
+    private int evictions;
+
+    private static final class WorldSnapshot
+    {
+        final GroundItemManager.Snapshot groundItems;
+        final ShopManager.Snapshot shops;
+        final long estimatedBytes;
+
+        WorldSnapshot(GroundItemManager.Snapshot groundItems, ShopManager.Snapshot shops)
+        {
+            this.groundItems = groundItems;
+            this.shops = shops;
+            this.estimatedBytes = (long) (groundItems.size() + shops.size()) * BYTES_PER_ENTRY;
+        }
+    }
+
+    /**
+     * Called when a hop starts - the current state is set aside until we know where we landed
+     */
+    public void onHopStarted()
+    {
+        if (currentWorld == -1 || leaving != null)
+        {
+            return;
+        }
+
+        leaving = new WorldSnapshot(groundItemManager.detachState(), shopManager.detachState());
+    }
+
+    /**
+     * Called once logged in, with the world we ended up on
+     */
+    public void onWorldLoaded(int world)
+    {
+        WorldSnapshot previous = leaving;
+        leaving = null;
+
+        if (world == currentWorld)
+        {
+            // Hop didn't go through, put everything back
+            if (previous != null)
+            {
+                attach(previous);
+            }
+            return;
+        }
+
+        if (previous != null && currentWorld != -1)
+        {
+            snapshots.put(currentWorld, previous);
+            retainedBytes += previous.estimatedBytes;
+        }
+
+        WorldSnapshot restored = snapshots.remove(world);
+        if (restored != null)
+        {
+            retainedBytes -= restored.estimatedBytes;
+            attach(restored);
+            hits++;
+            log.debug("Restored state for world {}", world);
+        }
+        else if (currentWorld != -1)
+        {
+            misses++;
+        }
+
+        currentWorld = world;
+        evictOverLimit();
+    }
+
+    public void clear()
+    {
+        snapshots.clear();
+        leaving = null;
+        currentWorld = -1;
+        retainedBytes = 0;
+    }
+
+    public int getSnapshotCount()
+    {
+        return snapshots.size();
+    }
+
+    public long getRetainedBytes()
+    {
+        return retainedBytes;
+    }
+
+    public int getHits()
+    {
+        return hits;
+    }
+
+    public int getMisses()
+    {
+        return misses;
+    }
+
+    public int getEvictions()
+    {
+        return evictions;
+    }
+
+    private void attach(WorldSnapshot snapshot)
+    {
+        groundItemManager.attachState(snapshot.groundItems);
+        shopManager.attachState(snapshot.shops);
+    }
+
+    private void evictOverLimit()
+    {
+        long memoryCap = config.worldSnapshotMemory() * 1024L;
+        Iterator<Map.Entry<Integer, WorldSnapshot>> it = snapshots.entrySet().iterator();
+        while (it.hasNext()
+                && (snapshots.size() > config.worldSnapshots() || (memoryCap > 0 && retainedBytes > memoryCap)))
+        {
+            Map.Entry<Integer, WorldSnapshot> eldest = it.next();
+            retainedBytes -= eldest.getValue().estimatedBytes;
+            it.remove();
+            evictions++;
+            log.debug("Evicted state for world {}", eldest.getKey());
+        }
+    }
+}
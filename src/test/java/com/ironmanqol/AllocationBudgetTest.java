@@ -0,0 +1,172 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.MenuAction;
+import net.runelite.api.MenuEntry;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuEntryAdded;
+import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails when a hot path allocates more per call than its budget, measured after warm-up.
+ * Uses real item ids, which are past the JVM's cached boxes, so any boxing on the plugin's side shows up.
+ * The stubs answer with values boxed up front, so only the plugin's own allocations are counted.
+ */
+public class AllocationBudgetTest
+{
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASURED_CALLS = 10_000;
+
+    private static final int PILE_SIZE = 20;
+    private static final int SCENE_X = 52;
+    private static final int SCENE_Y = 52;
+
+    // The last item of the pile, the one the lookups ask about
+    private static final int TARGET = PILE_SIZE - 1;
+    private static final int TARGET_ID = ItemID.BRONZE_DAGGER + TARGET;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private StubClient client;
+    private GroundItemManager groundItemManager;
+    private ShopManager shopManager;
+    private MenuEntryFilter menuEntryFilter;
+    private PickupGuard pickupGuard;
+
+    private ItemSpawned[] spawns;
+    private ItemDespawned[] despawns;
+    private WorldPoint location;
+
+    @Before
+    public void setUp()
+    {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        client = new StubClient();
+        Injector injector = client.createInjector();
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        shopManager = injector.getInstance(ShopManager.class);
+        menuEntryFilter = injector.getInstance(MenuEntryFilter.class);
+        pickupGuard = injector.getInstance(PickupGuard.class);
+
+        Tile tile = client.tile(SCENE_X, SCENE_Y, 0);
+        location = tile.getWorldLocation();
+        spawns = new ItemSpawned[PILE_SIZE];
+        despawns = new ItemDespawned[PILE_SIZE];
+        for (int i = 0; i < PILE_SIZE; i++)
+        {
+            TileItem item = StubClient.item(ItemID.BRONZE_DAGGER + i, 1);
+            spawns[i] = new ItemSpawned(tile, item);
+            despawns[i] = new ItemDespawned(tile, item);
+            groundItemManager.onItemSpawned(spawns[i]);
+        }
+    }
+
+    @Test
+    public void itemSpawnedAndDespawned()
+    {
+        // Cycling one item of a pile, the tile itself stays tracked
+        int[] next = new int[1];
+        assertBudget("onItemSpawned + onItemDespawned", 96, () ->
+        {
+            int i = next[0]++ % PILE_SIZE;
+            groundItemManager.onItemDespawned(despawns[i]);
+            groundItemManager.onItemSpawned(spawns[i]);
+        });
+    }
+
+    @Test
+    public void canPickUpItem()
+    {
+        TileItem item = spawns[TARGET].getItem();
+        assertBudget("canPickUpItem", 0, () -> groundItemManager.canPickUpItem(item, location));
+    }
+
+    @Test
+    public void getItemOwnership()
+    {
+        assertBudget("getItemOwnership", 0, () -> groundItemManager.getItemOwnership(location, TARGET_ID));
+    }
+
+    @Test
+    public void menuFiltering()
+    {
+        MenuEntry entry = StubClient.menuEntry(MenuAction.GROUND_ITEM_THIRD_OPTION, TARGET_ID, SCENE_X, SCENE_Y);
+        MenuEntryAdded event = new MenuEntryAdded(entry);
+        // Covers the stub's argument array for setDeprioritized, the lookup itself allocates nothing
+        assertBudget("MenuEntryFilter.onMenuEntryAdded", 48, () -> menuEntryFilter.onMenuEntryAdded(event));
+    }
+
+    @Test
+    public void takeGuard()
+    {
+        MenuEntry entry = StubClient.menuEntry(MenuAction.GROUND_ITEM_THIRD_OPTION, TARGET_ID, SCENE_X, SCENE_Y);
+        MenuOptionClicked event = new MenuOptionClicked(entry);
+        assertBudget("PickupGuard.onMenuOptionClicked", 0, () -> pickupGuard.onMenuOptionClicked(event));
+    }
+
+    @Test
+    public void shopStockUpdate()
+    {
+        Widget[] stock = new Widget[10];
+        for (int i = 0; i < stock.length; i++)
+        {
+            client.defineItem(ItemID.BRONZE_DAGGER + i, "Bronze dagger", 2);
+            stock[i] = StubClient.shopItem(ItemID.BRONZE_DAGGER + i, 5);
+        }
+        client.setShop("General Store", stock);
+
+        WidgetLoaded shopOpened = new WidgetLoaded();
+        shopOpened.setGroupId(InterfaceID.SHOP);
+        shopManager.onWidgetLoaded(shopOpened);
+        int shopId = shopManager.getCurrentShopId();
+
+        // Covers the stub's argument arrays for getWidget, the update boxes each item id once for the map lookup
+        assertBudget("ShopManager.updateShopStockFromWidget", 512, () -> shopManager.updateShopStockFromWidget(shopId));
+    }
+
+    private void assertBudget(String path, long bytesPerCall, Runnable call)
+    {
+        for (int i = 0; i < WARMUP_CALLS; i++)
+        {
+            call.run();
+        }
+
+        long overhead = allocatedBy(() ->
+        {
+        });
+        long allocated = allocatedBy(call) - overhead;
+        long perCall = Math.max(0, allocated / MEASURED_CALLS);
+
+        assertTrue(path + " allocates " + perCall + " bytes per call, budget is " + bytesPerCall,
+                perCall <= bytesPerCall);
+    }
+
+    private long allocatedBy(Runnable call)
+    {
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_CALLS; i++)
+        {
+            call.run();
+        }
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.OTHER_PLAYER;
+import static com.ironmanqol.GroundItemManager.ItemOwnership.PLAYER_LOOT;
+import static com.ironmanqol.VisibilityRules.Context.TAKE_OPTION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClassificationRulesTest
+{
+    // Lumbridge, where the stub player stands
+    private static final int LUMBRIDGE = ClassificationRules.regionId(3212, 3247);
+    private static final int VARROCK = ClassificationRules.regionId(3212, 3422);
+
+    private final StubClient client = new StubClient();
+    private final Map<String, Object> config = new HashMap<>();
+
+    private ClassificationRules rules;
+    private VisibilityRules visibilityRules;
+    private ShopManager shopManager;
+
+    @Before
+    public void setUp()
+    {
+        client.defineItem(ItemID.BONES, "Bones", 1);
+        client.defineItem(ItemID.BIG_BONES, "Big bones", 50);
+        client.defineItem(ItemID.VIAL, "Vial", 2);
+        client.defineItem(ItemID.BUCKET, "Bucket", 2);
+        client.setPlayerLocation(new WorldPoint(3212, 3247, 0));
+
+        Injector injector = client.createInjector(StubClient.config(config));
+        rules = injector.getInstance(ClassificationRules.class);
+        visibilityRules = injector.getInstance(VisibilityRules.class);
+        shopManager = injector.getInstance(ShopManager.class);
+    }
+
+    @Test
+    public void hideRuleOverridesTheToggles()
+    {
+        config.put("hideGroundItems", false);
+        compile("hide item:*bones ownership:other");
+
+        assertFalse(visibilityRules.isAllowed(TAKE_OPTION, OTHER_PLAYER, ItemID.BONES, LUMBRIDGE));
+        assertFalse(visibilityRules.isAllowed(TAKE_OPTION, OTHER_PLAYER, ItemID.BIG_BONES, LUMBRIDGE));
+        assertTrue(visibilityRules.isAllowed(TAKE_OPTION, PLAYER_LOOT, ItemID.BONES, LUMBRIDGE));
+        assertTrue(visibilityRules.isAllowed(TAKE_OPTION, OTHER_PLAYER, ItemID.VIAL, LUMBRIDGE));
+        assertTrue(visibilityRules.filtersTakeOption());
+    }
+
+    @Test
+    public void firstMatchingRuleWins()
+    {
+        compile("# Bones are fine in Lumbridge, not elsewhere\n"
+                + "show id:" + ItemID.BONES + " region:" + LUMBRIDGE + "\n"
+                + "hide item:bones");
+
+        assertEquals(ClassificationRules.Action.SHOW, rules.matchGroundItem(ItemID.BONES, OTHER_PLAYER, LUMBRIDGE));
+        assertEquals(ClassificationRules.Action.HIDE, rules.matchGroundItem(ItemID.BONES, OTHER_PLAYER, VARROCK));
+        assertNull(rules.matchGroundItem(ItemID.VIAL, OTHER_PLAYER, VARROCK));
+        assertTrue(visibilityRules.isAllowed(TAKE_OPTION, OTHER_PLAYER, ItemID.BONES, LUMBRIDGE));
+    }
+
+    @Test
+    public void shopRulesOverrideStock()
+    {
+        compile("stock item:vial* shop:\"general store\"\n"
+                + "sold item:bucket\n"
+                + "hide id:" + ItemID.BIG_BONES + " shop:general*");
+        open("General Store", ItemID.VIAL, ItemID.BUCKET, ItemID.BIG_BONES);
+        int shopId = shopManager.getCurrentShopId();
+
+        assertFalse(shopManager.shouldHideShopItem(shopId, ItemID.VIAL));
+        assertTrue(shopManager.shouldHideShopItem(shopId, ItemID.BUCKET));
+        assertTrue(shopManager.shouldHideShopItem(shopId, ItemID.BIG_BONES));
+        assertNull(rules.matchShopStock(ItemID.VIAL, "Magic shop", LUMBRIDGE));
+    }
+
+    @Test
+    public void brokenLinesAreReportedAndSkipped()
+    {
+        compile("hide item:bones\n"
+                + "destroy item:bones\n"
+                + "show id:20-10\n"
+                + "stock item:vial ownership:other\n"
+                + "show shop:\"general store");
+
+        assertEquals(1, rules.getRuleCount());
+        String errors = (String) config.get("ruleErrors");
+        assertTrue(errors, errors.startsWith("Line 2: unknown action 'destroy'"));
+        assertTrue(errors, errors.contains("Line 3: range '20-10' is backwards"));
+        assertTrue(errors, errors.contains("Line 4: shop items have no ownership"));
+        assertTrue(errors, errors.contains("Line 5: unclosed quote"));
+
+        compile("hide item:bones");
+        assertEquals("", config.get("ruleErrors"));
+    }
+
+    @Test
+    public void lastOfManyRulesStillMatches()
+    {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < ClassificationRules.MAX_RULES - 1; i++)
+        {
+            text.append("hide id:").append(20000 + i).append(" ownership:other\n");
+        }
+        text.append("show item:vial");
+        compile(text.toString());
+
+        assertEquals(ClassificationRules.MAX_RULES, rules.getRuleCount());
+        assertEquals(ClassificationRules.Action.SHOW, rules.matchGroundItem(ItemID.VIAL, OTHER_PLAYER, LUMBRIDGE));
+        assertEquals(ClassificationRules.Action.HIDE, rules.matchGroundItem(20000, OTHER_PLAYER, LUMBRIDGE));
+        assertNull(rules.matchGroundItem(20000, PLAYER_LOOT, LUMBRIDGE));
+    }
+
+    private void compile(String text)
+    {
+        config.put("classificationRules", text);
+        rules.compile();
+        visibilityRules.rebuild();
+    }
+
+    private void open(String shopName, int... itemIds)
+    {
+        Widget[] stock = new Widget[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++)
+        {
+            stock[i] = StubClient.shopItem(itemIds[i], 10);
+        }
+        client.setShop(shopName, stock);
+
+        WidgetLoaded event = new WidgetLoaded();
+        event.setGroupId(InterfaceID.SHOP);
+        shopManager.onWidgetLoaded(event);
+    }
+}
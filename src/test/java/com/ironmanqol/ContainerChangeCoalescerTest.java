@@ -0,0 +1,103 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.InventoryID;
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemContainerChanged;
+import net.runelite.api.events.ItemSpawned;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+
+public class ContainerChangeCoalescerTest
+{
+    private static final int INVENTORY = InventoryID.INVENTORY.getId();
+
+    private final StubClient client = new StubClient();
+    private GroundItemManager groundItemManager;
+    private ContainerChangeCoalescer coalescer;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector();
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        coalescer = injector.getInstance(ContainerChangeCoalescer.class);
+
+        // The first contents seen are only the baseline
+        inventory(new int[]{ItemID.LOBSTER, ItemID.LOBSTER, ItemID.LOBSTER}, new int[]{1, 1, 1});
+        tick();
+        assertEquals(0, coalescer.getDiffsDelivered());
+    }
+
+    @Test
+    public void oneDiffPerContainerPerTick()
+    {
+        // Eating three lobsters in a tick, then putting one back, nets a loss of two
+        inventory(new int[]{ItemID.LOBSTER, ItemID.LOBSTER}, new int[]{1, 1});
+        inventory(new int[]{ItemID.LOBSTER}, new int[]{1});
+        inventory(new int[]{}, new int[]{});
+        inventory(new int[]{ItemID.LOBSTER}, new int[]{1});
+        tick();
+
+        assertEquals(5, coalescer.getRawEvents());
+        assertEquals(1, coalescer.getDiffsDelivered());
+        assertEquals(4, coalescer.getCoalescedEvents());
+    }
+
+    @Test
+    public void unchangedContainerDeliversNothing()
+    {
+        inventory(new int[]{ItemID.LOBSTER, ItemID.LOBSTER}, new int[]{1, 1});
+        inventory(new int[]{ItemID.LOBSTER, ItemID.LOBSTER, ItemID.LOBSTER}, new int[]{1, 1, 1});
+        tick();
+
+        assertEquals(0, coalescer.getDiffsDelivered());
+    }
+
+    @Test
+    public void inventoryLossClaimsItemsUnderThePlayer()
+    {
+        Tile playerTile = client.tile(52, 52, 0);
+        Tile nextTile = client.tile(53, 52, 0);
+        groundItemManager.onItemSpawned(new ItemSpawned(playerTile, StubClient.item(ItemID.LOBSTER, 1)));
+        groundItemManager.onItemSpawned(new ItemSpawned(nextTile, StubClient.item(ItemID.LOBSTER, 1)));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(playerTile.getWorldLocation(), ItemID.LOBSTER));
+
+        inventory(new int[]{ItemID.LOBSTER, ItemID.LOBSTER}, new int[]{1, 1});
+        tick();
+
+        assertEquals(PLAYER_DROPPED, groundItemManager.getItemOwnership(playerTile.getWorldLocation(), ItemID.LOBSTER));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(nextTile.getWorldLocation(), ItemID.LOBSTER));
+    }
+
+    @Test
+    public void containersSentAfterAHopAreNotALoss()
+    {
+        Tile playerTile = client.tile(52, 52, 0);
+        groundItemManager.onItemSpawned(new ItemSpawned(playerTile, StubClient.item(ItemID.LOBSTER, 1)));
+
+        // The new world sends the inventory again, here after a lobster was eaten during the hop
+        coalescer.reset();
+        inventory(new int[]{ItemID.LOBSTER, ItemID.LOBSTER}, new int[]{1, 1});
+        tick();
+
+        assertEquals(0, coalescer.getDiffsDelivered());
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(playerTile.getWorldLocation(), ItemID.LOBSTER));
+    }
+
+    private void inventory(int[] itemIds, int[] quantities)
+    {
+        coalescer.onItemContainerChanged(new ItemContainerChanged(INVENTORY, StubClient.container(INVENTORY, itemIds, quantities)));
+    }
+
+    private void tick()
+    {
+        client.tick();
+        coalescer.onGameTick(new GameTick());
+    }
+}
@@ -0,0 +1,113 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemSpawned;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DataLoaderTest
+{
+    private final StubClient client = new StubClient();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private DataLoader dataLoader;
+    private VisibilityRules rules;
+    private GroundItemManager groundItemManager;
+
+    @Before
+    public void setUp()
+    {
+        // Hold the loader thread back until the test lets it go
+        executor.execute(() ->
+        {
+            try
+            {
+                release.await();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Injector injector = client.createUnloadedInjector(StubClient.defaultConfig(), executor);
+        dataLoader = injector.getInstance(DataLoader.class);
+        rules = injector.getInstance(VisibilityRules.class);
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        rules.rebuild();
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void nothingIsHiddenUntilLoaded()
+    {
+        dataLoader.start();
+        groundItemManager.onItemSpawned(new ItemSpawned(client.tile(52, 52, 0), StubClient.item(ItemID.COINS_995, 20)));
+
+        assertFalse(dataLoader.isReady());
+        assertEquals(-1, dataLoader.getTimeToReadyMillis());
+        assertTrue(rules.isAllowed(VisibilityRules.Context.TAKE_OPTION, OTHER_PLAYER, ItemID.COINS_995, 12850));
+        assertFalse(rules.filtersTakeOption());
+        assertFalse(rules.blocksTakeClicks());
+        assertTrue(rules.isShopItemVisible(false));
+        assertTrue(groundItemManager.canPickUpItem(ItemID.COINS_995, 52, 52, 0));
+
+        release.countDown();
+        dataLoader.start().join();
+
+        assertTrue(dataLoader.isReady());
+        assertTrue(dataLoader.getTimeToReadyMillis() >= 0);
+        assertFalse(rules.isAllowed(VisibilityRules.Context.TAKE_OPTION, OTHER_PLAYER, ItemID.COINS_995, 12850));
+        assertTrue(rules.blocksTakeClicks());
+        assertFalse(groundItemManager.canPickUpItem(ItemID.COINS_995, 52, 52, 0));
+    }
+
+    @Test
+    public void staticSpawnsSeenEarlyAreClassifiedAgain()
+    {
+        dataLoader.start();
+
+        // Lumbridge's bronze dagger spawn, seen before the static spawns are in
+        client.setSceneBase(3200, 3200);
+        Tile tile = client.tile(25, 18, 0);
+        assertEquals(new WorldPoint(3225, 3218, 0), tile.getWorldLocation());
+        TileItem dagger = StubClient.item(ItemID.BRONZE_DAGGER, 1);
+        tile.getGroundItems().add(dagger);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, dagger));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(tile.getWorldLocation(), ItemID.BRONZE_DAGGER));
+
+        release.countDown();
+        dataLoader.start().join();
+        groundItemManager.onGameTick(new GameTick());
+
+        assertEquals(STATIC_SPAWN, groundItemManager.getItemOwnership(tile.getWorldLocation(), ItemID.BRONZE_DAGGER));
+    }
+
+    @Test
+    public void startIsIdempotent()
+    {
+        assertTrue(dataLoader.start() == dataLoader.start());
+        release.countDown();
+    }
+}
@@ -0,0 +1,62 @@
+package com.ironmanqol;
+
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DespawnTimerTest
+{
+    private final StubClient client = new StubClient();
+    private GroundItemManager groundItemManager;
+    private Tile tile;
+
+    @Before
+    public void setUp()
+    {
+        groundItemManager = client.createInjector().getInstance(GroundItemManager.class);
+        client.setTickCount(1000);
+        tile = client.tile(50, 52, 0);
+        groundItemManager.onActorDeath(new ActorDeath(client.npc(1, tile.getWorldLocation(), true, 0)));
+    }
+
+    @Test
+    public void lootCountsDownToPublicAndDespawn()
+    {
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(526, 1)));
+
+        List<GroundItemManager.DespawnTimer> timers = groundItemManager.getDespawnTimers().get(tile.getWorldLocation());
+        assertEquals(1, timers.size());
+        assertEquals(1100, timers.get(0).getPublicTick());
+        assertEquals(1200, timers.get(0).getDespawnTick());
+
+        // Never saw the despawn, the queue still lets it go
+        client.setTickCount(1200);
+        groundItemManager.onGameTick(new GameTick());
+        assertTrue(groundItemManager.getDespawnTimers().isEmpty());
+    }
+
+    @Test
+    public void despawnCancelsTimer()
+    {
+        TileItem bones = StubClient.item(526, 1);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, bones));
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(995, 10)));
+
+        groundItemManager.onItemDespawned(new ItemDespawned(tile, bones));
+
+        WorldPoint location = tile.getWorldLocation();
+        assertEquals(1, groundItemManager.getDespawnTimers().get(location).size());
+        assertEquals(995, groundItemManager.getDespawnTimers().get(location).get(0).getItemId());
+    }
+}
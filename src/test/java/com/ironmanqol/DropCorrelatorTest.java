@@ -0,0 +1,132 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.InventoryID;
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuOptionClicked;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DropCorrelatorTest
+{
+    private final StubClient client = new StubClient();
+    private GroundItemManager groundItemManager;
+    private DropCorrelator dropCorrelator;
+    private Tile playerTile;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector();
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        dropCorrelator = injector.getInstance(DropCorrelator.class);
+
+        client.setSceneBase(3200, 3200);
+        client.setPlayerLocation(new WorldPoint(3252, 3252, 0));
+        client.setTickCount(100);
+        playerTile = client.tile(52, 52, 0);
+        client.setInventory(StubClient.container(InventoryID.INVENTORY.getId(),
+                new int[]{ItemID.IRON_ORE, ItemID.IRON_ORE, ItemID.COINS_995}, new int[]{1, 1, 500}));
+    }
+
+    @Test
+    public void powerminingDropsAreOwnDrops()
+    {
+        drop(ItemID.IRON_ORE, 0);
+        drop(ItemID.IRON_ORE, 1);
+        client.tick();
+
+        spawn(playerTile, ItemID.IRON_ORE, 1);
+        // Same id on the same tile, the second ore consumes its own pending drop
+        spawn(playerTile, ItemID.IRON_ORE, 1);
+
+        assertEquals(PLAYER_DROPPED, groundItemManager.getItemOwnership(playerTile.getWorldLocation(), ItemID.IRON_ORE));
+        assertEquals(2, dropCorrelator.getDropsMatched());
+        assertEquals(0, dropCorrelator.getPendingCount());
+        assertEquals(2, groundItemManager.getPendingDropCount());
+        assertEquals(2, groundItemManager.getDespawnTimers().get(playerTile.getWorldLocation()).size());
+        assertEquals(401, groundItemManager.getDespawnTimers().get(playerTile.getWorldLocation()).get(0).getDespawnTick());
+    }
+
+    @Test
+    public void quantityAndTileMustMatch()
+    {
+        drop(ItemID.COINS_995, 2);
+        client.tick();
+
+        // Someone else's coins under us, and a matching stack a tile away
+        spawn(playerTile, ItemID.COINS_995, 20);
+        Tile nextTile = client.tile(53, 52, 0);
+        spawn(nextTile, ItemID.COINS_995, 500);
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(nextTile.getWorldLocation(), ItemID.COINS_995));
+
+        spawn(client.tile(51, 51, 0), ItemID.COINS_995, 500);
+        assertEquals(1, dropCorrelator.getPendingCount());
+    }
+
+    @Test
+    public void sameItemIsCountedPerOwner()
+    {
+        WorldPoint location = playerTile.getWorldLocation();
+        TileItem theirs = spawn(playerTile, ItemID.IRON_ORE, 1);
+        drop(ItemID.IRON_ORE, 0);
+        client.tick();
+        TileItem ours = spawn(playerTile, ItemID.IRON_ORE, 1);
+        // Landing next to our ore doesn't make another one ours
+        spawn(playerTile, ItemID.IRON_ORE, 1);
+        assertEquals(2, (int) groundItemManager.countByOwnership().get(OTHER_PLAYER));
+        assertEquals(1, (int) groundItemManager.countByOwnership().get(PLAYER_DROPPED));
+
+        // Someone picks up theirs, ours is still known
+        groundItemManager.onItemDespawned(new ItemDespawned(playerTile, theirs));
+        assertEquals(PLAYER_DROPPED, groundItemManager.getItemOwnership(location, ItemID.IRON_ORE));
+        assertTrue(groundItemManager.canPickUpItem(ItemID.IRON_ORE, 52, 52, 0));
+
+        groundItemManager.onItemDespawned(new ItemDespawned(playerTile, ours));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(location, ItemID.IRON_ORE));
+    }
+
+    @Test
+    public void dropsExpireAfterTheWindow()
+    {
+        drop(ItemID.IRON_ORE, 0);
+        client.setTickCount(110);
+
+        spawn(playerTile, ItemID.IRON_ORE, 1);
+
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(playerTile.getWorldLocation(), ItemID.IRON_ORE));
+        assertEquals(0, dropCorrelator.getPendingCount());
+    }
+
+    @Test
+    public void ringKeepsTheNewestDrops()
+    {
+        for (int i = 0; i < 40; i++)
+        {
+            drop(ItemID.IRON_ORE, 0);
+        }
+        assertEquals(32, dropCorrelator.getPendingCount());
+        assertEquals(40, dropCorrelator.getDropsClicked());
+    }
+
+    private void drop(int itemId, int slot)
+    {
+        dropCorrelator.onMenuOptionClicked(new MenuOptionClicked(StubClient.inventoryOption("Drop", itemId, slot)));
+    }
+
+    private TileItem spawn(Tile tile, int itemId, int quantity)
+    {
+        TileItem item = StubClient.item(itemId, quantity);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, item));
+        return item;
+    }
+}
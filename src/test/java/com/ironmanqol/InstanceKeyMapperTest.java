@@ -0,0 +1,138 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.Constants;
+import net.runelite.api.GameState;
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.ItemSpawned;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+
+public class InstanceKeyMapperTest
+{
+    private static final int CHUNKS = Constants.SCENE_SIZE / Constants.CHUNK_SIZE;
+
+    private final StubClient client = new StubClient();
+    private GroundItemManager groundItemManager;
+    private InstanceKeyMapper instanceKeys;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector();
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        instanceKeys = injector.getInstance(InstanceKeyMapper.class);
+        client.setSceneBase(3200, 3200);
+    }
+
+    @Test
+    public void itemsSentWhileEnteringAreKeyedByTemplate()
+    {
+        spawn(client.tile(50, 50, 0), ItemID.SHARK);
+
+        // Instances are built far away from the template they were copied from
+        loadScene(6400, 6400, templates(3200, 3200), ItemID.LOBSTER);
+
+        Tile tile = client.tile(10, 10, 0);
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(ItemID.LOBSTER, 10, 10, 0));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(tile.getWorldLocation(), ItemID.LOBSTER));
+        // Keyed by the template tile, not the instance tile it was sent for
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(new WorldPoint(3210, 3210, 0), ItemID.LOBSTER));
+    }
+
+    @Test
+    public void itemsSentWhileLeavingAreKept()
+    {
+        loadScene(6400, 6400, templates(3200, 3200), ItemID.LOBSTER);
+
+        loadScene(3200, 3200, null, ItemID.SHARK);
+
+        Tile tile = client.tile(10, 10, 0);
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(ItemID.SHARK, 10, 10, 0));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(tile.getWorldLocation(), ItemID.SHARK));
+        // The instance's lobster is forgotten, the shark just sent isn't
+        assertEquals(1, groundItemManager.getTrackedLocationCount());
+        assertEquals(UNKNOWN, groundItemManager.getItemOwnership(new WorldPoint(3210, 3210, 0), ItemID.LOBSTER));
+    }
+
+    @Test
+    public void rotatedChunksAreKeyedLikeTheClient()
+    {
+        for (int rotation = 0; rotation < 4; rotation++)
+        {
+            client.setSceneBase(6400, 6400);
+            client.setInstance(templates(3200, 3200, rotation));
+            instanceKeys.onSceneLoading();
+
+            // Every tile of a chunk, so each corner and edge is covered
+            for (int sceneX = 16; sceneX < 16 + Constants.CHUNK_SIZE; sceneX++)
+            {
+                for (int sceneY = 24; sceneY < 24 + Constants.CHUNK_SIZE; sceneY++)
+                {
+                    WorldPoint expected = WorldPoint.fromLocalInstance(client.get(), LocalPoint.fromScene(sceneX, sceneY), 0);
+                    assertEquals("rotation " + rotation, expected, instanceKeys.toKey(client.tile(sceneX, sceneY, 0)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads a scene like the client does: the new scene's items are sent while it loads, before LOGGED_IN
+     */
+    private void loadScene(int baseX, int baseY, int[][][] templates, int sentItemId)
+    {
+        client.setSceneBase(baseX, baseY);
+        client.setInstance(templates);
+        groundItemManager.onGameStateChanged(gameState(GameState.LOADING));
+        spawn(client.tile(10, 10, 0), sentItemId);
+        groundItemManager.onGameStateChanged(gameState(GameState.LOGGED_IN));
+    }
+
+    private void spawn(Tile tile, int itemId)
+    {
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(itemId, 1)));
+    }
+
+    /**
+     * Every chunk copied unrotated from the same place in a template area starting at the given location
+     */
+    private static int[][][] templates(int templateX, int templateY)
+    {
+        return templates(templateX, templateY, 0);
+    }
+
+    /**
+     * Every chunk copied from the same place in a template area, turned by the given number of quarter turns
+     */
+    private static int[][][] templates(int templateX, int templateY, int rotation)
+    {
+        int[][][] templates = new int[Constants.MAX_Z][CHUNKS][CHUNKS];
+        for (int plane = 0; plane < Constants.MAX_Z; plane++)
+        {
+            for (int chunkX = 0; chunkX < CHUNKS; chunkX++)
+            {
+                for (int chunkY = 0; chunkY < CHUNKS; chunkY++)
+                {
+                    int x = templateX / Constants.CHUNK_SIZE + chunkX;
+                    int y = templateY / Constants.CHUNK_SIZE + chunkY;
+                    templates[plane][chunkX][chunkY] = plane << 24 | x << 14 | y << 3 | rotation << 1;
+                }
+            }
+        }
+        return templates;
+    }
+
+    private static GameStateChanged gameState(GameState state)
+    {
+        GameStateChanged event = new GameStateChanged();
+        event.setGameState(state);
+        return event;
+    }
+}
@@ -0,0 +1,369 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Generates worst-case event streams from a fixed seed and reports how GroundItemManager scales.
+ * Usage: LoadGenerator [scenario|all] [ticks] [seed]
+ */
+public class LoadGenerator
+{
+    private static final int FIRST_ITEM_ID = 500;
+    private static final int ITEM_ID_RANGE = 4500;
+    private static final int SCENE_CENTER = 52;
+    private static final int MEMORY_SAMPLE_TICKS = 100;
+
+    public enum Scenario
+    {
+        // 2,000 players around the GE each dropping something every ~100 ticks, walking reloads the scene
+        GE_DROPS,
+        // 300 item death piles on a single tile
+        PVP_DEATH_PILES,
+        // Cannon multi-kills, several NPCs dying per tick with loot spread over nearby tiles
+        CANNON_BURSTS,
+        // Hopping between a handful of worlds every few ticks
+        HOP_STORM
+    }
+
+    private static final class LiveItem
+    {
+        final Tile tile;
+        final TileItem item;
+        final int despawnTick;
+        final int sceneGeneration;
+
+        LiveItem(Tile tile, TileItem item, int despawnTick, int sceneGeneration)
+        {
+            this.tile = tile;
+            this.item = item;
+            this.despawnTick = despawnTick;
+            this.sceneGeneration = sceneGeneration;
+        }
+    }
+
+    private final Scenario scenario;
+    private final int ticks;
+    private final Random random;
+
+    private final StubClient client = new StubClient();
+    private final GroundItemManager manager;
+    private final WorldStateCache worldStateCache;
+    private final MemoryGovernor memoryGovernor;
+
+    // Items ordered by spawn, all scenarios use lifetimes that keep this close to despawn order
+    private final ArrayDeque<LiveItem> liveItems = new ArrayDeque<>();
+    private final LatencyHistogram tickCost = new LatencyHistogram();
+
+    private int sceneGeneration;
+    private int baseX = 3136;
+    private int world = 301;
+    private int peakLocations;
+    private int peakItems;
+    private long peakHeap;
+    private long events;
+
+    public LoadGenerator(Scenario scenario, int ticks, long seed)
+    {
+        this.scenario = scenario;
+        this.ticks = ticks;
+        this.random = new Random(seed);
+
+        Injector injector = client.createInjector();
+        manager = injector.getInstance(GroundItemManager.class);
+        worldStateCache = injector.getInstance(WorldStateCache.class);
+        memoryGovernor = injector.getInstance(MemoryGovernor.class);
+        client.setSceneBase(baseX, 3440);
+        client.setPlayerLocation(new WorldPoint(baseX + SCENE_CENTER, 3440 + SCENE_CENTER, 0));
+        worldStateCache.onWorldLoaded(world);
+    }
+
+    public static void main(String[] args)
+    {
+        Scenario scenario = args.length > 0 && !"all".equalsIgnoreCase(args[0]) ? Scenario.valueOf(args[0].toUpperCase()) : null;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 6000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1L;
+
+        for (Scenario s : scenario != null ? new Scenario[]{scenario} : Scenario.values())
+        {
+            System.out.println(s + " (" + ticks + " ticks, seed " + seed + ")");
+            System.out.println(new LoadGenerator(s, ticks, seed).run());
+        }
+    }
+
+    public Report run()
+    {
+        long heapBefore = usedHeapAfterGc();
+
+        for (int i = 0; i < ticks; i++)
+        {
+            client.tick();
+            int tick = client.getTickCount();
+
+            long start = System.nanoTime();
+            GameTick gameTick = new GameTick();
+            manager.onGameTick(gameTick);
+            memoryGovernor.onGameTick(gameTick);
+            despawnExpired(tick);
+            switch (scenario)
+            {
+                case GE_DROPS:
+                    geDrops(tick);
+                    break;
+                case PVP_DEATH_PILES:
+                    deathPiles(tick);
+                    break;
+                case CANNON_BURSTS:
+                    cannonBursts(tick);
+                    break;
+                case HOP_STORM:
+                    hopStorm(tick);
+                    break;
+            }
+            tickCost.record(System.nanoTime() - start);
+
+            peakLocations = Math.max(peakLocations, manager.getTrackedLocationCount());
+            if (tick % MEMORY_SAMPLE_TICKS == 0)
+            {
+                peakItems = Math.max(peakItems, trackedItems());
+                peakHeap = Math.max(peakHeap, usedHeap());
+            }
+        }
+
+        long heapAfter = usedHeapAfterGc();
+        return new Report(ticks, events, tickCost, peakLocations, manager.getTrackedLocationCount(), peakItems,
+                trackedItems(), manager.getPendingDropCount(), liveItems.size(), heapAfter - heapBefore,
+                peakHeap - heapBefore, worldStateCache.getSnapshotCount(), worldStateCache.getRetainedBytes(),
+                memoryGovernor.getUsedBytes(), memoryGovernor.getGroundItemEvictions());
+    }
+
+    private void geDrops(int tick)
+    {
+        // ~2,000 players each dropping once every ~100 ticks
+        int drops = 20 + random.nextInt(3) - 1;
+        for (int i = 0; i < drops; i++)
+        {
+            spawn(SCENE_CENTER - 20 + random.nextInt(40), SCENE_CENTER - 20 + random.nextInt(40), randomItemId(),
+                    tick + 100 + random.nextInt(200));
+        }
+
+        // Walking around reloads the scene, items left behind never get a despawn
+        if (tick % 500 == 0)
+        {
+            reloadScene(baseX + 8);
+        }
+    }
+
+    private void deathPiles(int tick)
+    {
+        if (tick % 50 != 0)
+        {
+            return;
+        }
+
+        int x = SCENE_CENTER - 10 + random.nextInt(20);
+        int y = SCENE_CENTER - 10 + random.nextInt(20);
+        for (int i = 0; i < 300; i++)
+        {
+            spawn(x, y, randomItemId(), tick + 200);
+        }
+    }
+
+    private void cannonBursts(int tick)
+    {
+        if (tick % 4 != 0)
+        {
+            return;
+        }
+
+        WorldPoint player = client.get().getLocalPlayer().getWorldLocation();
+        for (int kill = 0; kill < 8; kill++)
+        {
+            int x = SCENE_CENTER - 5 + random.nextInt(10);
+            int y = SCENE_CENTER - 5 + random.nextInt(10);
+            manager.onActorDeath(new ActorDeath(client.npc(kill, new WorldPoint(player.getX() - SCENE_CENTER + x,
+                    player.getY() - SCENE_CENTER + y, 0), true, 0)));
+            events++;
+
+            int loot = 3 + random.nextInt(3);
+            for (int i = 0; i < loot; i++)
+            {
+                spawn(x, y, randomItemId(), tick + 200);
+            }
+        }
+    }
+
+    private void hopStorm(int tick)
+    {
+        if (tick % 20 != 0)
+        {
+            spawn(SCENE_CENTER - 10 + random.nextInt(20), SCENE_CENTER - 10 + random.nextInt(20), randomItemId(),
+                    tick + 100);
+            return;
+        }
+
+        worldStateCache.onHopStarted();
+        world = 301 + random.nextInt(6);
+        client.setWorld(world);
+        worldStateCache.onWorldLoaded(world);
+        reloadScene(baseX);
+
+        // The new world sends its ground items while the scene loads
+        for (int i = 0; i < 50; i++)
+        {
+            spawn(SCENE_CENTER - 10 + random.nextInt(20), SCENE_CENTER - 10 + random.nextInt(20), randomItemId(),
+                    tick + 100 + random.nextInt(100));
+        }
+    }
+
+    private void spawn(int sceneX, int sceneY, int itemId, int despawnTick)
+    {
+        Tile tile = client.tile(sceneX, sceneY, 0);
+        TileItem item = StubClient.item(itemId, 1);
+        manager.onItemSpawned(new ItemSpawned(tile, item));
+        liveItems.add(new LiveItem(tile, item, despawnTick, sceneGeneration));
+        events++;
+    }
+
+    private void despawnExpired(int tick)
+    {
+        while (!liveItems.isEmpty() && liveItems.peekFirst().despawnTick <= tick)
+        {
+            LiveItem live = liveItems.pollFirst();
+            // Items from a previous scene are gone from the client without ever despawning
+            if (live.sceneGeneration == sceneGeneration)
+            {
+                manager.onItemDespawned(new ItemDespawned(live.tile, live.item));
+                events++;
+            }
+        }
+    }
+
+    private void reloadScene(int newBaseX)
+    {
+        baseX = newBaseX;
+        sceneGeneration++;
+        client.setSceneBase(baseX, 3440);
+        client.setPlayerLocation(new WorldPoint(baseX + SCENE_CENTER, 3440 + SCENE_CENTER, 0));
+        manager.onSceneLoading();
+    }
+
+    private int randomItemId()
+    {
+        return FIRST_ITEM_ID + random.nextInt(ITEM_ID_RANGE);
+    }
+
+    private int trackedItems()
+    {
+        int items = 0;
+        for (int count : manager.countByOwnership().values())
+        {
+            items += count;
+        }
+        return items;
+    }
+
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long usedHeapAfterGc()
+    {
+        System.gc();
+        return usedHeap();
+    }
+
+    public static final class Report
+    {
+        private final int ticks;
+        private final long events;
+        private final LatencyHistogram tickCost;
+        private final int peakLocations;
+        private final int finalLocations;
+        private final int peakItems;
+        private final int finalItems;
+        private final int pendingDrops;
+        private final int liveItems;
+        private final long heapGrowth;
+        private final long peakHeapGrowth;
+        private final int worldSnapshots;
+        private final long worldSnapshotBytes;
+        private final long trackingBytes;
+        private final long evictedItems;
+
+        Report(int ticks, long events, LatencyHistogram tickCost, int peakLocations, int finalLocations, int peakItems,
+               int finalItems, int pendingDrops, int liveItems, long heapGrowth, long peakHeapGrowth, int worldSnapshots,
+               long worldSnapshotBytes, long trackingBytes, long evictedItems)
+        {
+            this.ticks = ticks;
+            this.events = events;
+            this.tickCost = tickCost;
+            this.peakLocations = peakLocations;
+            this.finalLocations = finalLocations;
+            this.peakItems = peakItems;
+            this.finalItems = finalItems;
+            this.pendingDrops = pendingDrops;
+            this.liveItems = liveItems;
+            this.heapGrowth = heapGrowth;
+            this.peakHeapGrowth = peakHeapGrowth;
+            this.worldSnapshots = worldSnapshots;
+            this.worldSnapshotBytes = worldSnapshotBytes;
+            this.trackingBytes = trackingBytes;
+            this.evictedItems = evictedItems;
+        }
+
+        public int getFinalLocations()
+        {
+            return finalLocations;
+        }
+
+        public int getFinalItems()
+        {
+            return finalItems;
+        }
+
+        public int getLiveItems()
+        {
+            return liveItems;
+        }
+
+        public long getHeapGrowth()
+        {
+            return heapGrowth;
+        }
+
+        public LatencyHistogram getTickCost()
+        {
+            return tickCost;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("  events: %d over %d ticks%n"
+                            + "  tick cost (us): p50 %.1f, p99 %.1f, max %.1f%n"
+                            + "  tracked locations: peak %d, final %d%n"
+                            + "  tracked items: peak %d, final %d (generator items alive: %d)%n"
+                            + "  pending drops: %d%n"
+                            + "  heap growth: %d KiB final, %d KiB peak%n"
+                            + "  world snapshots: %d (~%d KiB)%n"
+                            + "  tracking memory: ~%d KiB, evicted items: %d",
+                    events, ticks,
+                    tickCost.getPercentile(50) / 1000.0, tickCost.getPercentile(99) / 1000.0, tickCost.getMax() / 1000.0,
+                    peakLocations, finalLocations, peakItems, finalItems, liveItems, pendingDrops,
+                    heapGrowth / 1024, peakHeapGrowth / 1024, worldSnapshots, worldSnapshotBytes / 1024,
+                    trackingBytes / 1024, evictedItems);
+        }
+    }
+}
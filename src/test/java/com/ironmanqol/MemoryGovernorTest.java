@@ -0,0 +1,152 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.Tile;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryGovernorTest
+{
+    private final StubClient client = new StubClient();
+    private final Map<String, Object> config = new HashMap<>();
+
+    private GroundItemManager groundItemManager;
+    private ShopManager shopManager;
+    private MemoryGovernor memoryGovernor;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector(StubClient.config(config));
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        shopManager = injector.getInstance(ShopManager.class);
+        memoryGovernor = injector.getInstance(MemoryGovernor.class);
+    }
+
+    @Test
+    public void evictsFarthestRegionFirst()
+    {
+        // Two piles in the loaded scene, one next to the player's region and one two regions away
+        client.setSceneBase(3200, 3200);
+        client.setPlayerLocation(new WorldPoint(3210, 3210, 0));
+        spawnPile(40, 40);
+        spawnPile(100, 100);
+
+        memoryGovernor.enforce();
+        long used = memoryGovernor.getUsedBytes();
+
+        config.put("trackingMemory", (int) (used / 2 / 1024));
+        memoryGovernor.enforce();
+
+        assertTrue(memoryGovernor.getUsedBytes() <= used / 2);
+        assertTrue(memoryGovernor.getGroundItemEvictions() > 0);
+        assertEquals(GroundItemManager.ItemOwnership.OTHER_PLAYER,
+                groundItemManager.getItemOwnership(new WorldPoint(3240, 3240, 0), 1));
+        assertEquals(GroundItemManager.ItemOwnership.UNKNOWN,
+                groundItemManager.getItemOwnership(new WorldPoint(3300, 3300, 0), 1));
+    }
+
+    @Test
+    public void evictsLeftScenesBeforeTheLoadedOne()
+    {
+        // Piles in a scene the player has left, then one in the loaded scene that's as far away
+        client.setSceneBase(3136, 3200);
+        client.setPlayerLocation(new WorldPoint(3210, 3210, 0));
+        for (int sceneY = 40; sceneY < 43; sceneY++)
+        {
+            spawnPile(50, sceneY);
+        }
+        groundItemManager.onSceneLoading();
+        client.setSceneBase(3200, 3200);
+        spawnPile(100, 100);
+
+        memoryGovernor.enforce();
+        long used = memoryGovernor.getUsedBytes();
+
+        config.put("trackingMemory", (int) (used / 2 / 1024));
+        memoryGovernor.enforce();
+
+        assertEquals(GroundItemManager.ItemOwnership.UNKNOWN,
+                groundItemManager.getItemOwnership(new WorldPoint(3186, 3240, 0), 1));
+        assertEquals(GroundItemManager.ItemOwnership.OTHER_PLAYER,
+                groundItemManager.getItemOwnership(new WorldPoint(3300, 3300, 0), 1));
+    }
+
+    @Test
+    public void keepsOwnLootInTheLoadedScene()
+    {
+        client.setSceneBase(3200, 3200);
+        // Just across the border of the player's region
+        client.setPlayerLocation(new WorldPoint(3262, 3262, 0));
+        Tile tile = client.tile(66, 66, 0);
+        groundItemManager.onActorDeath(new ActorDeath(client.npc(1, tile.getWorldLocation(), true, 0)));
+        spawnPile(66, 66);
+
+        // A cap below the pile would evict everything that can be evicted
+        config.put("trackingMemory", 1);
+        memoryGovernor.enforce();
+
+        assertEquals(0, memoryGovernor.getGroundItemEvictions());
+        assertEquals(GroundItemManager.ItemOwnership.PLAYER_LOOT,
+                groundItemManager.getItemOwnership(new WorldPoint(3266, 3266, 0), 1));
+    }
+
+    @Test
+    public void evictsLeastRecentlyOpenedShop()
+    {
+        WorldPoint lastShop = new WorldPoint(3215, 3415, 0);
+        openShop(lastShop);
+        for (int i = 0; i < 10; i++)
+        {
+            client.tick();
+            // A region apart, so every one is a shop of its own
+            openShop(new WorldPoint(3000 + i * 64, 3000, 0));
+        }
+        client.tick();
+        openShop(lastShop);
+
+        // A cap below a single shop keeps only the one opened last
+        config.put("trackingMemory", 1);
+        memoryGovernor.enforce();
+
+        assertEquals(1, shopManager.getTrackedShopCount());
+        assertTrue(shopManager.canBuyItem(shopManager.getCurrentShopId(), 1));
+        assertEquals(10, memoryGovernor.getShopEvictions());
+    }
+
+    private void spawnPile(int sceneX, int sceneY)
+    {
+        Tile tile = client.tile(sceneX, sceneY, 0);
+        for (int itemId = 1; itemId <= 200; itemId++)
+        {
+            groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(itemId, 1)));
+        }
+    }
+
+    private void openShop(WorldPoint location)
+    {
+        client.setPlayerLocation(location);
+        Widget[] stock = new Widget[50];
+        for (int i = 0; i < stock.length; i++)
+        {
+            stock[i] = StubClient.shopItem(i + 1, 10);
+        }
+        client.setShop("General Store", stock);
+
+        WidgetLoaded event = new WidgetLoaded();
+        event.setGroupId(InterfaceID.SHOP);
+        shopManager.onWidgetLoaded(event);
+    }
+}
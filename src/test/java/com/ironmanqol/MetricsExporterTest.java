@@ -0,0 +1,93 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.events.GameTick;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsExporterTest
+{
+    private final StubClient client = new StubClient();
+
+    private ScheduledExecutorService executor;
+    private PluginMetrics metrics;
+    private MetricsExporter exporter;
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        Injector injector = client.createInjector();
+        executor = injector.getInstance(ScheduledExecutorService.class);
+        metrics = injector.getInstance(PluginMetrics.class);
+        exporter = injector.getInstance(MetricsExporter.class);
+        directory = Files.createTempDirectory("metrics").toFile();
+        exporter.setOutput(directory, 1024 * 1024);
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File file : MetricsExporter.files(directory))
+        {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void snapshotsAreWrittenOnStopAndSummarized() throws Exception
+    {
+        exporter.start();
+        // One snapshot on the first tick, then one every SNAPSHOT_TICKS
+        for (int tick = 0; tick <= MetricsExporter.SNAPSHOT_TICKS; tick++)
+        {
+            metrics.record(PluginMetrics.Handler.ITEM_SPAWNED, metrics.start());
+            metrics.record(PluginMetrics.Handler.ITEM_SPAWNED, metrics.start());
+            metrics.onTick();
+            exporter.onGameTick(new GameTick());
+            client.tick();
+        }
+        assertEquals(0, new File(directory, MetricsExporter.FILE_NAME).length());
+
+        exporter.stop();
+        executor.submit(() -> { }).get();
+
+        List<MetricsReport.Session> sessions = MetricsReport.read(MetricsExporter.files(directory)).getSessions();
+        assertEquals(1, sessions.size());
+        MetricsReport.Session session = sessions.get(0);
+        assertEquals(2, session.getSnapshotCount());
+        assertEquals(MetricsExporter.SNAPSHOT_TICKS, session.getGrowth("ticks"));
+        assertEquals(2.0, session.getEventsPerTick("item_spawned"), 0.001);
+        assertEquals(2 * (MetricsExporter.SNAPSHOT_TICKS + 1), session.getLast("item_spawned.count"));
+        assertTrue(Double.isNaN(session.getHitRate("item_rules")));
+        assertTrue(session.toString(), session.toString().contains("item_spawned"));
+    }
+
+    @Test
+    public void fullFilesRollOver() throws Exception
+    {
+        exporter.setOutput(directory, 1);
+        for (int i = 0; i < MetricsExporter.KEPT_FILES + 3; i++)
+        {
+            exporter.snapshot();
+            exporter.write();
+        }
+
+        // The live file and the kept ones, each holding one snapshot
+        List<File> files = MetricsExporter.files(directory);
+        assertEquals(MetricsExporter.KEPT_FILES + 1, files.size());
+        assertEquals(MetricsExporter.FILE_NAME, files.get(files.size() - 1).getName());
+        assertEquals(MetricsExporter.KEPT_FILES + 1, MetricsReport.read(files).getSessions().get(0).getSnapshotCount());
+    }
+}
@@ -0,0 +1,199 @@
+package com.ironmanqol;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Summarizes exported metrics files into a report, one section per plugin session.
+ * Usage: MetricsReport [metrics directory or file]..., defaulting to the RuneLite metrics directory
+ */
+public class MetricsReport
+{
+    private final List<Session> sessions = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException
+    {
+        List<File> files = new ArrayList<>();
+        for (String path : args.length > 0 ? args : new String[]{MetricsExporter.METRICS_DIR.getPath()})
+        {
+            File file = new File(path);
+            files.addAll(file.isDirectory() ? MetricsExporter.files(file) : Collections.singletonList(file));
+        }
+        System.out.println(read(files));
+    }
+
+    /**
+     * Reads snapshots from the files in order, grouping them by the session that wrote them
+     */
+    public static MetricsReport read(List<File> files) throws IOException
+    {
+        MetricsReport report = new MetricsReport();
+        Map<Long, Session> bySession = new LinkedHashMap<>();
+        for (File file : files)
+        {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+            {
+                String line;
+                while ((line = reader.readLine()) != null)
+                {
+                    Map<String, Long> snapshot = parse(line);
+                    Long session = snapshot.get("session");
+                    if (session != null)
+                    {
+                        bySession.computeIfAbsent(session, Session::new).snapshots.add(snapshot);
+                    }
+                }
+            }
+        }
+        report.sessions.addAll(bySession.values());
+        return report;
+    }
+
+    public List<Session> getSessions()
+    {
+        return sessions;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder report = new StringBuilder();
+        for (Session session : sessions)
+        {
+            report.append(session).append(System.lineSeparator());
+        }
+        return sessions.isEmpty() ? "No metrics found" : report.toString().trim();
+    }
+
+    /**
+     * The snapshots one plugin session wrote, oldest first
+     */
+    public static final class Session
+    {
+        private final long start;
+        private final List<Map<String, Long>> snapshots = new ArrayList<>();
+
+        private Session(long start)
+        {
+            this.start = start;
+        }
+
+        public int getSnapshotCount()
+        {
+            return snapshots.size();
+        }
+
+        public long getLast(String key)
+        {
+            return snapshots.get(snapshots.size() - 1).getOrDefault(key, 0L);
+        }
+
+        /**
+         * Gets the highest value a key had in any snapshot
+         */
+        public long getPeak(String key)
+        {
+            long peak = 0;
+            for (Map<String, Long> snapshot : snapshots)
+            {
+                peak = Math.max(peak, snapshot.getOrDefault(key, 0L));
+            }
+            return peak;
+        }
+
+        /**
+         * Gets how much a counter grew from the first snapshot to the last
+         */
+        public long getGrowth(String key)
+        {
+            return getLast(key) - snapshots.get(0).getOrDefault(key, 0L);
+        }
+
+        /**
+         * Gets the average events per tick a handler saw between the first and last snapshot
+         */
+        public double getEventsPerTick(String handler)
+        {
+            long ticks = getGrowth("ticks");
+            return ticks == 0 ? 0 : (double) getGrowth(handler + ".count") / ticks;
+        }
+
+        /**
+         * Gets the hit rate of a cache over the session, or NaN if it was never used
+         */
+        public double getHitRate(String cache)
+        {
+            long hits = getLast("cache." + cache + ".hits");
+            long misses = getLast("cache." + cache + ".misses");
+            return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder report = new StringBuilder();
+            report.append(String.format("Session %d: %d snapshots over %d ticks, max %d events/tick%n",
+                    start, snapshots.size(), getGrowth("ticks"), getPeak("max_events_per_tick")));
+
+            report.append(String.format("  %-16s %10s %10s %10s %10s%n", "handler (us)", "events/t", "p50", "p99 worst", "max"));
+            for (PluginMetrics.Handler handler : PluginMetrics.Handler.values())
+            {
+                String name = handler.name().toLowerCase(Locale.ROOT);
+                report.append(String.format("  %-16s %10.2f %10.1f %10.1f %10.1f%n", name, getEventsPerTick(name),
+                        getLast(name + ".p50_ns") / 1000.0, getPeak(name + ".p99_ns") / 1000.0, getPeak(name + ".max_ns") / 1000.0));
+            }
+
+            TreeSet<String> keys = new TreeSet<>(snapshots.get(snapshots.size() - 1).keySet());
+            for (String key : keys)
+            {
+                if (key.startsWith("size.") || key.startsWith("queue.") || key.startsWith("memory."))
+                {
+                    report.append(String.format("  %-32s last %d, peak %d%n", key, getLast(key), getPeak(key)));
+                }
+                else if (key.startsWith("evictions.") || key.startsWith("container.") || key.startsWith("drops.")
+                        || key.startsWith("takes."))
+                {
+                    report.append(String.format("  %-32s %d%n", key, getLast(key)));
+                }
+                else if (key.startsWith("cache.") && key.endsWith(".hits"))
+                {
+                    String cache = key.substring("cache.".length(), key.length() - ".hits".length());
+                    report.append(String.format("  %-32s %.1f%% of %d%n", "cache." + cache + " hit rate", getHitRate(cache) * 100,
+                            getLast(key) + getLast("cache." + cache + ".misses")));
+                }
+            }
+            return report.toString();
+        }
+    }
+
+    private static Map<String, Long> parse(String line)
+    {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (String pair : line.trim().split(" "))
+        {
+            int equals = pair.indexOf('=');
+            if (equals > 0)
+            {
+                try
+                {
+                    snapshot.put(pair.substring(0, equals), Long.parseLong(pair.substring(equals + 1)));
+                }
+                catch (NumberFormatException e)
+                {
+                    // A key this reader doesn't know the format of, skipped
+                }
+            }
+        }
+        return snapshot;
+    }
+}
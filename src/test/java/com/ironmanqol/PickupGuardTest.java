@@ -0,0 +1,98 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.MenuAction;
+import net.runelite.api.Tile;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuOptionClicked;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PickupGuardTest
+{
+    private static final int SCENE_X = 50;
+    private static final int SCENE_Y = 50;
+
+    private final StubClient client = new StubClient();
+    private final Map<String, Object> config = new HashMap<>();
+
+    private GroundItemManager groundItemManager;
+    private VisibilityRules visibilityRules;
+    private PickupGuard pickupGuard;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector(StubClient.config(config));
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        visibilityRules = injector.getInstance(VisibilityRules.class);
+        pickupGuard = injector.getInstance(PickupGuard.class);
+
+        // A 300 item pile of someone else's, with one piece of our own loot in it
+        Tile tile = client.tile(SCENE_X, SCENE_Y, 0);
+        for (int i = 0; i < 300; i++)
+        {
+            groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(ItemID.BRONZE_DAGGER + i, 1)));
+        }
+        groundItemManager.onActorDeath(new ActorDeath(client.npc(1, tile.getWorldLocation(), true, 0)));
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(ItemID.BONES, 1)));
+    }
+
+    @Test
+    public void blocksOtherPlayersItems()
+    {
+        MenuOptionClicked click = take(ItemID.BRONZE_DAGGER + 150);
+        pickupGuard.onMenuOptionClicked(click);
+
+        assertTrue(click.isConsumed());
+        assertEquals(1, pickupGuard.getBlockedClicks());
+        assertEquals(1, pickupGuard.getBlockedClicks(GroundItemManager.ItemOwnership.OTHER_PLAYER));
+    }
+
+    @Test
+    public void letsOwnLootThrough()
+    {
+        MenuOptionClicked click = take(ItemID.BONES);
+        pickupGuard.onMenuOptionClicked(click);
+
+        assertFalse(click.isConsumed());
+        assertEquals(0, pickupGuard.getBlockedClicks());
+    }
+
+    @Test
+    public void letsUntrackedItemsThrough()
+    {
+        // Nothing known about it, e.g. sent before tracking started
+        MenuOptionClicked click = take(ItemID.COINS_995);
+        pickupGuard.onMenuOptionClicked(click);
+
+        assertFalse(click.isConsumed());
+        assertEquals(0, pickupGuard.getBlockedClicks(GroundItemManager.ItemOwnership.UNKNOWN));
+    }
+
+    @Test
+    public void turnedOffLetsEverythingThrough()
+    {
+        config.put("blockTakeClicks", false);
+        visibilityRules.rebuild();
+
+        MenuOptionClicked click = take(ItemID.BRONZE_DAGGER);
+        pickupGuard.onMenuOptionClicked(click);
+
+        assertFalse(click.isConsumed());
+    }
+
+    private static MenuOptionClicked take(int itemId)
+    {
+        return new MenuOptionClicked(StubClient.menuEntry(MenuAction.GROUND_ITEM_THIRD_OPTION, itemId, SCENE_X, SCENE_Y));
+    }
+}
@@ -0,0 +1,258 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.InventoryID;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.*;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Feeds a recorded event stream into the managers without a client and reports how they coped.
+ * Usage: ReplayRunner &lt;recording.iqr&gt;...
+ */
+public class ReplayRunner implements EventRecording.Listener
+{
+    private final StubClient client = new StubClient();
+    private final GroundItemManager groundItemManager;
+    private final ShopManager shopManager;
+    private final ContainerChangeCoalescer containerChangeCoalescer;
+    private final DropCorrelator dropCorrelator;
+
+    // Recording handle -> item instance, so despawns hand back the same item that spawned
+    private final Map<Integer, TileItem> items = new HashMap<>();
+
+    private final LatencyHistogram tickLatency = new LatencyHistogram();
+    private long tickNanos;
+    private long handlerNanos;
+    private long events;
+    private long ticks;
+
+    public ReplayRunner()
+    {
+        Injector injector = client.createInjector();
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        shopManager = injector.getInstance(ShopManager.class);
+        containerChangeCoalescer = injector.getInstance(ContainerChangeCoalescer.class);
+        dropCorrelator = injector.getInstance(DropCorrelator.class);
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        for (String path : args)
+        {
+            try (InputStream in = new FileInputStream(path))
+            {
+                System.out.println(path);
+                System.out.println(new ReplayRunner().replay(in));
+            }
+        }
+    }
+
+    public Result replay(InputStream in) throws IOException
+    {
+        long records = EventRecording.read(in, this);
+        closeTick();
+        return new Result(records, ticks, events, handlerNanos, tickLatency,
+                groundItemManager.countByOwnership(), groundItemManager.getTrackedLocationCount(),
+                shopManager.getTrackedShopCount());
+    }
+
+    public GroundItemManager getGroundItemManager()
+    {
+        return groundItemManager;
+    }
+
+    public ShopManager getShopManager()
+    {
+        return shopManager;
+    }
+
+    @Override
+    public void onTick(int tick, int world, int baseX, int baseY, int playerX, int playerY, int playerPlane)
+    {
+        closeTick();
+
+        client.setTickCount(tick);
+        client.setWorld(world);
+        client.setSceneBase(baseX, baseY);
+        client.setPlayerLocation(new WorldPoint(playerX, playerY, playerPlane));
+
+        long start = System.nanoTime();
+        GameTick gameTick = new GameTick();
+        groundItemManager.onGameTick(gameTick);
+        containerChangeCoalescer.onGameTick(gameTick);
+        account(start);
+    }
+
+    @Override
+    public void onItemSpawned(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity)
+    {
+        TileItem item = StubClient.item(itemId, quantity);
+        items.put(handle, item);
+        ItemSpawned event = new ItemSpawned(client.tile(sceneX, sceneY, plane), item);
+
+        long start = System.nanoTime();
+        groundItemManager.onItemSpawned(event);
+        account(start);
+    }
+
+    @Override
+    public void onItemDespawned(int handle, int sceneX, int sceneY, int plane, int itemId, int quantity)
+    {
+        TileItem item = items.remove(handle);
+        ItemDespawned event = new ItemDespawned(client.tile(sceneX, sceneY, plane),
+                item != null ? item : StubClient.item(itemId, quantity));
+
+        long start = System.nanoTime();
+        groundItemManager.onItemDespawned(event);
+        account(start);
+    }
+
+    @Override
+    public void onActorDeath(int npcIndex, int x, int y, int plane, boolean targetingPlayer, int healthRatio)
+    {
+        ActorDeath event = new ActorDeath(client.npc(npcIndex, new WorldPoint(x, y, plane), targetingPlayer, healthRatio));
+
+        long start = System.nanoTime();
+        groundItemManager.onActorDeath(event);
+        account(start);
+    }
+
+    @Override
+    public void onContainerChanged(int containerId, int[] itemIds, int[] quantities)
+    {
+        ItemContainer container = StubClient.container(containerId, itemIds, quantities);
+        if (containerId == InventoryID.INVENTORY.getId())
+        {
+            // Drop clicks read the dropped stack's quantity from the inventory
+            client.setInventory(container);
+        }
+        ItemContainerChanged event = new ItemContainerChanged(containerId, container);
+
+        long start = System.nanoTime();
+        containerChangeCoalescer.onItemContainerChanged(event);
+        account(start);
+    }
+
+    @Override
+    public void onShopOpened(String shopName, int[] itemIds, int[] quantities)
+    {
+        Widget[] shopItems = new Widget[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++)
+        {
+            shopItems[i] = StubClient.shopItem(itemIds[i], quantities[i]);
+        }
+        client.setShop(shopName, shopItems);
+        WidgetLoaded event = new WidgetLoaded();
+        event.setGroupId(InterfaceID.SHOP);
+
+        long start = System.nanoTime();
+        shopManager.onWidgetLoaded(event);
+        account(start);
+    }
+
+    @Override
+    public void onDropClicked(int itemId, int slot)
+    {
+        MenuOptionClicked event = new MenuOptionClicked(StubClient.inventoryOption("Drop", itemId, slot));
+
+        long start = System.nanoTime();
+        dropCorrelator.onMenuOptionClicked(event);
+        account(start);
+    }
+
+    private void account(long start)
+    {
+        long elapsed = System.nanoTime() - start;
+        tickNanos += elapsed;
+        handlerNanos += elapsed;
+        events++;
+    }
+
+    private void closeTick()
+    {
+        if (events > 0)
+        {
+            tickLatency.record(tickNanos);
+            ticks++;
+        }
+        tickNanos = 0;
+    }
+
+    public static final class Result
+    {
+        private final long records;
+        private final long ticks;
+        private final long events;
+        private final long handlerNanos;
+        private final LatencyHistogram tickLatency;
+        private final Map<GroundItemManager.ItemOwnership, Integer> ownership;
+        private final int trackedLocations;
+        private final int trackedShops;
+
+        Result(long records, long ticks, long events, long handlerNanos, LatencyHistogram tickLatency,
+               Map<GroundItemManager.ItemOwnership, Integer> ownership, int trackedLocations, int trackedShops)
+        {
+            this.records = records;
+            this.ticks = ticks;
+            this.events = events;
+            this.handlerNanos = handlerNanos;
+            this.tickLatency = tickLatency;
+            this.ownership = ownership;
+            this.trackedLocations = trackedLocations;
+            this.trackedShops = trackedShops;
+        }
+
+        public long getRecords()
+        {
+            return records;
+        }
+
+        public int getOwnershipCount(GroundItemManager.ItemOwnership itemOwnership)
+        {
+            return ownership.getOrDefault(itemOwnership, 0);
+        }
+
+        public int getTrackedLocations()
+        {
+            return trackedLocations;
+        }
+
+        public int getTrackedShops()
+        {
+            return trackedShops;
+        }
+
+        public LatencyHistogram getTickLatency()
+        {
+            return tickLatency;
+        }
+
+        public double getEventsPerSecond()
+        {
+            return handlerNanos == 0 ? 0 : events * 1e9 / handlerNanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("  records: %d, ticks: %d, events: %d%n"
+                            + "  throughput: %.0f events/s%n"
+                            + "  tick latency (us): p50 %.1f, p99 %.1f, max %.1f%n"
+                            + "  ownership: %s%n"
+                            + "  tracked locations: %d, tracked shops: %d",
+                    records, ticks, events, getEventsPerSecond(),
+                    tickLatency.getPercentile(50) / 1000.0, tickLatency.getPercentile(99) / 1000.0, tickLatency.getMax() / 1000.0,
+                    ownership, trackedLocations, trackedShops);
+        }
+    }
+}
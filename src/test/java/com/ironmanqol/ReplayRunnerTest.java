@@ -0,0 +1,68 @@
+package com.ironmanqol;
+
+import net.runelite.api.InventoryID;
+import net.runelite.api.ItemID;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReplayRunnerTest
+{
+    private static final int BASE_X = 3200;
+    private static final int BASE_Y = 3200;
+
+    @Test
+    public void replaysRecordedSession() throws IOException
+    {
+        ByteArrayOutputStream recording = new ByteArrayOutputStream();
+        try (EventRecording.Writer writer = new EventRecording.Writer(recording))
+        {
+            writer.tick(1, 301, BASE_X, BASE_Y, 3222, 3218, 0);
+            // Known Lumbridge static spawn and a stranger's drop
+            writer.itemSpawned(0, 25, 18, 0, ItemID.BRONZE_DAGGER, 1);
+            writer.itemSpawned(1, 30, 30, 0, ItemID.SHARK, 1);
+
+            writer.tick(2, 301, BASE_X, BASE_Y, 3222, 3218, 0);
+            writer.actorDeath(12, 3223, 3218, 0, true, 0);
+            writer.itemSpawned(2, 23, 18, 0, ItemID.BONES, 1);
+
+            writer.tick(3, 301, BASE_X, BASE_Y, 3222, 3218, 0);
+            writer.itemDespawned(1, 30, 30, 0, ItemID.SHARK, 1);
+        }
+
+        ReplayRunner.Result result = new ReplayRunner().replay(new ByteArrayInputStream(recording.toByteArray()));
+
+        assertEquals(8, result.getRecords());
+        assertEquals(1, result.getOwnershipCount(GroundItemManager.ItemOwnership.STATIC_SPAWN));
+        assertEquals(1, result.getOwnershipCount(GroundItemManager.ItemOwnership.PLAYER_LOOT));
+        assertEquals(0, result.getOwnershipCount(GroundItemManager.ItemOwnership.OTHER_PLAYER));
+        assertEquals(2, result.getTrackedLocations());
+    }
+
+    @Test
+    public void replaysDropCorrelation() throws IOException
+    {
+        ByteArrayOutputStream recording = new ByteArrayOutputStream();
+        try (EventRecording.Writer writer = new EventRecording.Writer(recording))
+        {
+            writer.tick(1, 301, BASE_X, BASE_Y, 3222, 3218, 0);
+            writer.containerChanged(InventoryID.INVENTORY.getId(), new int[]{ItemID.LOBSTER}, new int[]{1});
+
+            // The lobster lands under the player the tick after the click
+            writer.tick(2, 301, BASE_X, BASE_Y, 3222, 3218, 0);
+            writer.dropClicked(ItemID.LOBSTER, 0);
+            writer.tick(3, 301, BASE_X, BASE_Y, 3222, 3218, 0);
+            writer.itemSpawned(0, 22, 18, 0, ItemID.LOBSTER, 1);
+        }
+
+        ReplayRunner.Result result = new ReplayRunner().replay(new ByteArrayInputStream(recording.toByteArray()));
+
+        assertEquals(6, result.getRecords());
+        assertEquals(1, result.getOwnershipCount(GroundItemManager.ItemOwnership.PLAYER_DROPPED));
+        assertEquals(0, result.getOwnershipCount(GroundItemManager.ItemOwnership.OTHER_PLAYER));
+    }
+}
@@ -0,0 +1,60 @@
+package com.ironmanqol;
+
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SceneTileIndexTest
+{
+    private final StubClient client = new StubClient();
+    private GroundItemManager groundItemManager;
+
+    @Before
+    public void setUp()
+    {
+        groundItemManager = client.createInjector().getInstance(GroundItemManager.class);
+        client.setSceneBase(3200, 3200);
+        client.setPlayerLocation(new WorldPoint(3252, 3252, 0));
+    }
+
+    @Test
+    public void tileShowsHighestRankedOwnership()
+    {
+        Tile tile = client.tile(50, 50, 0);
+        TileItem shark = StubClient.item(ItemID.SHARK, 1);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, shark));
+        assertEquals(OTHER_PLAYER, groundItemManager.getSceneIndex().getTileOwnership(50, 50, 0));
+
+        groundItemManager.onActorDeath(new ActorDeath(client.npc(1, tile.getWorldLocation(), true, 0)));
+        TileItem bones = StubClient.item(ItemID.BONES, 1);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, bones));
+        assertEquals(PLAYER_LOOT, groundItemManager.getSceneIndex().getTileOwnership(50, 50, 0));
+
+        groundItemManager.onItemDespawned(new ItemDespawned(tile, bones));
+        assertEquals(OTHER_PLAYER, groundItemManager.getSceneIndex().getTileOwnership(50, 50, 0));
+
+        groundItemManager.onItemDespawned(new ItemDespawned(tile, shark));
+        assertNull(groundItemManager.getSceneIndex().getTileOwnership(50, 50, 0));
+    }
+
+    @Test
+    public void sceneMoveEmptiesIndex()
+    {
+        groundItemManager.onItemSpawned(new ItemSpawned(client.tile(50, 50, 0), StubClient.item(ItemID.SHARK, 1)));
+
+        client.setSceneBase(3208, 3200);
+        assertNull(groundItemManager.getSceneIndex().getTileOwnership(50, 50, 0));
+        // Still tracked by location, so walking back finds it again
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(new WorldPoint(3250, 3250, 0), ItemID.SHARK));
+    }
+}
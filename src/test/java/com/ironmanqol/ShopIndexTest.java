@@ -0,0 +1,148 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.WidgetLoaded;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShopIndexTest
+{
+    // Shops among the 2000 generated ones whose 20 items wrap round to item 10000
+    private static final int SHOPS_WITH_10000 = 7;
+
+    private final StubClient client = new StubClient();
+    private ShopManager shopManager;
+    private ShopIndex shopIndex;
+
+    @Before
+    public void setUp()
+    {
+        client.defineItem(ItemID.BUCKET, "Bucket", 2);
+        client.defineItem(ItemID.SHORTBOW, "Shortbow", 50);
+        client.defineItem(ItemID.BRONZE_ARROW, "Bronze arrow", 1);
+        client.defineItem(ItemID.IRON_ARROW, "Iron arrow", 3);
+
+        Injector injector = client.createInjector();
+        shopManager = injector.getInstance(ShopManager.class);
+        shopIndex = injector.getInstance(ShopIndex.class);
+    }
+
+    @Test
+    public void knownShopsAreIndexed()
+    {
+        assertEquals(Collections.singletonList("General Store"), shopIndex.getShops(ItemID.BUCKET));
+        assertEquals(Collections.singletonList("Ranging Shop"), shopIndex.getShops(ItemID.SHORTBOW));
+    }
+
+    @Test
+    public void openedShopsAreAddedAndCanonicalized()
+    {
+        // A shop selling noted iron arrows counts as selling iron arrows
+        client.defineNote(ItemID.IRON_ARROW + 1, ItemID.IRON_ARROW);
+        client.setPlayerLocation(new WorldPoint(3212, 3247, 0));
+        open("Bow shop", ItemID.SHORTBOW, ItemID.IRON_ARROW + 1);
+
+        assertEquals(Arrays.asList("Ranging Shop", "Bow shop (3212, 3247)"), shopIndex.getShops(ItemID.SHORTBOW));
+        assertEquals(Arrays.asList("Ranging Shop", "Bow shop (3212, 3247)"), shopIndex.getShops(ItemID.IRON_ARROW));
+        assertTrue(shopIndex.getShops(ItemID.IRON_ARROW + 1).isEmpty());
+    }
+
+    @Test
+    public void shopOpenedFromAnotherTileIsTheSameShop()
+    {
+        client.setPlayerLocation(new WorldPoint(3212, 3247, 0));
+        open("Bow shop", ItemID.SHORTBOW);
+        client.setPlayerLocation(new WorldPoint(3214, 3246, 0));
+        open("Bow shop", ItemID.SHORTBOW);
+
+        assertEquals(3, shopIndex.getShopCount());
+        assertEquals(Arrays.asList("Ranging Shop", "Bow shop (3212, 3247)"), shopIndex.getShops(ItemID.SHORTBOW));
+    }
+
+    @Test
+    public void itemsSoldByPlayersAreNotIndexed()
+    {
+        client.setPlayerLocation(new WorldPoint(3212, 3247, 0));
+        open("General Store", ItemID.BUCKET, ItemID.SHORTBOW);
+
+        assertEquals(Arrays.asList("General Store", "General Store (3212, 3247)"), shopIndex.getShops(ItemID.BUCKET));
+        assertEquals(Collections.singletonList("Ranging Shop"), shopIndex.getShops(ItemID.SHORTBOW));
+    }
+
+    @Test
+    public void evictedShopsAreRemoved()
+    {
+        client.setPlayerLocation(new WorldPoint(3212, 3247, 0));
+        open("Bow shop", ItemID.SHORTBOW);
+
+        assertTrue(shopManager.evictLeastRecentlyOpened(0));
+
+        assertEquals(2, shopIndex.getShopCount());
+        assertEquals(Collections.singletonList("Ranging Shop"), shopIndex.getShops(ItemID.SHORTBOW));
+    }
+
+    @Test
+    public void searchesByNameOnceNamesAreResolved()
+    {
+        shopIndex.onGameTick(new GameTick());
+
+        List<ShopIndex.Result> results = shopIndex.search("ARROW", 10);
+        assertEquals(2, results.size());
+        assertEquals("Bronze arrow", results.get(0).getItemName());
+        assertEquals("Iron arrow", results.get(1).getItemName());
+
+        // Names starting with the query come first
+        results = shopIndex.search("bow", 10);
+        assertEquals("Shortbow", results.get(0).getItemName());
+
+        results = shopIndex.search(Integer.toString(ItemID.BUCKET), 10);
+        assertEquals(ItemID.BUCKET, results.get(0).getItemId());
+    }
+
+    @Test
+    public void thousandsOfShops()
+    {
+        for (int shop = 0; shop < 2000; shop++)
+        {
+            Integer[] items = new Integer[20];
+            for (int i = 0; i < items.length; i++)
+            {
+                items[i] = 10000 + (shop * 7 + i) % 5000;
+            }
+            shopIndex.addKnownShop("Shop " + shop, Arrays.asList(items));
+        }
+
+        assertEquals(2002, shopIndex.getShopCount());
+        assertEquals(5000 + 8, shopIndex.getItemCount());
+
+        List<ShopIndex.Result> results = shopIndex.search("10000", 50);
+        assertEquals(1, results.size());
+        assertEquals(SHOPS_WITH_10000, results.get(0).getShops().size());
+    }
+
+    private void open(String shopName, int... itemIds)
+    {
+        Widget[] stock = new Widget[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++)
+        {
+            stock[i] = StubClient.shopItem(itemIds[i], 10);
+        }
+        client.setShop(shopName, stock);
+
+        WidgetLoaded event = new WidgetLoaded();
+        event.setGroupId(InterfaceID.SHOP);
+        shopManager.onWidgetLoaded(event);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.ItemID;
+import net.runelite.api.Tile;
+import net.runelite.api.TileItem;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.ItemDespawned;
+import net.runelite.api.events.ItemSpawned;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SpawnLearnerTest
+{
+    private static final int RESPAWN_TICKS = 50;
+
+    private final Map<String, Object> config = new ConcurrentHashMap<>();
+    private final StubClient client = new StubClient();
+    private GroundItemManager groundItemManager;
+    private SpawnLearner spawnLearner;
+    private Tile tile;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector(StubClient.config(config));
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        spawnLearner = injector.getInstance(SpawnLearner.class);
+
+        // Well away from the player, so nothing counts as a drop
+        client.setTickCount(1000);
+        tile = client.tile(10, 10, 0);
+    }
+
+    @Test
+    public void steadyRespawnsArePromoted()
+    {
+        assertEquals(OTHER_PLAYER, cycle(ItemID.POT, RESPAWN_TICKS));
+        assertEquals(OTHER_PLAYER, cycle(ItemID.POT, RESPAWN_TICKS));
+        assertEquals(OTHER_PLAYER, cycle(ItemID.POT, RESPAWN_TICKS + 1));
+        // The third steady respawn
+        assertEquals(STATIC_SPAWN, cycle(ItemID.POT, RESPAWN_TICKS));
+        assertEquals(0.3, spawnLearner.getConfidence(tile.getWorldLocation(), ItemID.POT), 1e-9);
+
+        assertEquals(STATIC_SPAWN, cycle(ItemID.POT, RESPAWN_TICKS));
+        assertEquals(0.4, spawnLearner.getConfidence(tile.getWorldLocation(), ItemID.POT), 1e-9);
+    }
+
+    @Test
+    public void unsteadyRespawnsAreNot()
+    {
+        cycle(ItemID.POT, 30);
+        cycle(ItemID.POT, 90);
+        cycle(ItemID.POT, 45);
+        cycle(ItemID.POT, 70);
+
+        assertEquals(OTHER_PLAYER, cycle(ItemID.POT, 70));
+        assertEquals(0, spawnLearner.getLearnedCount());
+    }
+
+    @Test
+    public void npcDropsBreakTheCycle()
+    {
+        cycle(ItemID.BONES, RESPAWN_TICKS);
+        cycle(ItemID.BONES, RESPAWN_TICKS);
+
+        // An NPC dying on the tile explains the next appearance
+        WorldPoint location = tile.getWorldLocation();
+        groundItemManager.onActorDeath(new ActorDeath(client.npc(1, location, false, 0)));
+        cycle(ItemID.BONES, RESPAWN_TICKS);
+
+        assertEquals(OTHER_PLAYER, cycle(ItemID.BONES, RESPAWN_TICKS));
+    }
+
+    @Test
+    public void learnedSpawnsSurviveARestart()
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            cycle(ItemID.POT, RESPAWN_TICKS);
+        }
+        groundItemManager.cleanup();
+        assertFalse(config.get("learnedSpawns").toString().isEmpty());
+
+        // A fresh session reading the same config
+        StubClient restarted = new StubClient();
+        GroundItemManager restartedManager = restarted.createInjector(StubClient.config(config)).getInstance(GroundItemManager.class);
+        Tile restartedTile = restarted.tile(10, 10, 0);
+        restartedManager.onItemSpawned(new ItemSpawned(restartedTile, StubClient.item(ItemID.POT, 1)));
+
+        assertEquals(STATIC_SPAWN, restartedManager.getItemOwnership(restartedTile.getWorldLocation(), ItemID.POT));
+    }
+
+    @Test
+    public void respawnsOfALearnedSpawnAreNotSavedAgain()
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            cycle(ItemID.POT, RESPAWN_TICKS);
+        }
+        groundItemManager.cleanup();
+        config.remove("learnedSpawns");
+
+        cycle(ItemID.POT, RESPAWN_TICKS);
+        groundItemManager.cleanup();
+        assertFalse(config.containsKey("learnedSpawns"));
+    }
+
+    @Test
+    public void candidatesAreBoundedPerRegion()
+    {
+        for (int itemId = 1; itemId <= 200; itemId++)
+        {
+            groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(itemId, 1)));
+        }
+
+        assertEquals(SpawnLearner.MAX_SPAWNS_PER_REGION, spawnLearner.getCandidateCount(tile.getWorldLocation().getRegionID()));
+    }
+
+    @Test
+    public void learningCanBeTurnedOff()
+    {
+        config.put("learnStaticSpawns", false);
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(OTHER_PLAYER, cycle(ItemID.POT, RESPAWN_TICKS));
+        }
+        assertEquals(0, spawnLearner.getLearnedCount());
+    }
+
+    // Spawns the item and takes it a tick later, then moves the clock on by the respawn time
+    private GroundItemManager.ItemOwnership cycle(int itemId, int respawnTicks)
+    {
+        TileItem item = StubClient.item(itemId, 1);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, item));
+        GroundItemManager.ItemOwnership ownership = groundItemManager.getItemOwnership(tile.getWorldLocation(), itemId);
+        client.tick();
+        groundItemManager.onItemDespawned(new ItemDespawned(tile, item));
+        client.setTickCount(client.getTickCount() + respawnTicks);
+        return ownership;
+    }
+}
@@ -0,0 +1,574 @@
+package com.ironmanqol;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import net.runelite.api.*;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.widgets.InterfaceID;
+import net.runelite.api.widgets.Widget;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Headless stand-in for the RuneLite client, for driving the managers outside of the game.
+ * Only the calls the plugin makes are answered, everything else returns a default value.
+ */
+public class StubClient
+{
+    private static final int LOCAL_TILE_SIZE = 128;
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, "stub-client-executor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Client client;
+    private final Player localPlayer;
+    private final Scene scene;
+    private final Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+    private final Map<Integer, ItemComposition> itemDefinitions = new HashMap<>();
+    private final Map<Integer, Integer> varbits = new HashMap<>();
+    private final Map<Integer, Widget> shopWidgets = new HashMap<>();
+
+    // Boxed once, so answering the client doesn't allocate on every call
+    private Integer tickCount = 0;
+    private Integer world = 301;
+    private Integer baseX = 3200;
+    private Integer baseY = 3200;
+    private Integer plane = 0;
+    private WorldPoint playerLocation = new WorldPoint(3252, 3252, 0);
+    private String shopName = "General Store";
+    private Widget[] shopItems = new Widget[0];
+    private ItemContainer inventory;
+    private int[][][] instanceTemplates;
+
+    public StubClient()
+    {
+        localPlayer = stub(Player.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getWorldLocation":
+                    return playerLocation;
+                case "getName":
+                    return "Iron stub";
+                default:
+                    return null;
+            }
+        });
+
+        scene = stub(Scene.class, (method, args) -> "getTiles".equals(method) ? tiles : null);
+
+        client = stub(Client.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getGameState":
+                    return GameState.LOGGED_IN;
+                case "getLocalPlayer":
+                    return localPlayer;
+                case "getScene":
+                    return scene;
+                case "getTickCount":
+                    return tickCount;
+                case "getWorld":
+                    return world;
+                case "getBaseX":
+                    return baseX;
+                case "getBaseY":
+                    return baseY;
+                case "isInInstancedRegion":
+                    return instanceTemplates != null;
+                case "getInstanceTemplateChunks":
+                    return instanceTemplates;
+                case "getPlane":
+                    return plane;
+                case "getVarbitValue":
+                    return varbits.getOrDefault((Integer) args[0], 0);
+                case "getItemDefinition":
+                    return itemDefinitions.get((Integer) args[0]);
+                case "getWidget":
+                    return shopWidget((Integer) args[0], (Integer) args[1]);
+                case "getItemContainer":
+                    // Asked for by InventoryID or by container id
+                    return args[0] == InventoryID.INVENTORY || args[0].equals(InventoryID.INVENTORY.getId()) ? inventory : null;
+                case "isClientThread":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public Client get()
+    {
+        return client;
+    }
+
+    /**
+     * Creates an injector that hands out the plugin's classes wired to this client
+     */
+    public Injector createInjector()
+    {
+        return createInjector(defaultConfig());
+    }
+
+    /**
+     * Creates an injector like {@link #createInjector()}, answering config calls with the given config
+     */
+    public Injector createInjector(IronmanQolConfig config)
+    {
+        Injector injector = createUnloadedInjector(config, EXECUTOR);
+        // Start from loaded data, like a session that's been running for a while
+        injector.getInstance(DataLoader.class).start().join();
+        return injector;
+    }
+
+    /**
+     * Creates an injector whose plugin data hasn't been loaded, loading runs on the given executor once started
+     */
+    public Injector createUnloadedInjector(IronmanQolConfig config, ScheduledExecutorService executor)
+    {
+        return Guice.createInjector(binder ->
+        {
+            binder.bind(Client.class).toInstance(client);
+            binder.bind(IronmanQolConfig.class).toInstance(config);
+            binder.bind(ScheduledExecutorService.class).toInstance(executor);
+        });
+    }
+
+    public void tick()
+    {
+        tickCount = tickCount + 1;
+    }
+
+    public int getTickCount()
+    {
+        return tickCount;
+    }
+
+    public void setTickCount(int tickCount)
+    {
+        this.tickCount = tickCount;
+    }
+
+    public void setWorld(int world)
+    {
+        this.world = world;
+    }
+
+    public void setPlayerLocation(WorldPoint playerLocation)
+    {
+        this.playerLocation = playerLocation;
+    }
+
+    /**
+     * Moves the scene, forgetting every tile created for the previous one
+     */
+    public void setSceneBase(int baseX, int baseY)
+    {
+        if (baseX == this.baseX.intValue() && baseY == this.baseY.intValue())
+        {
+            return;
+        }
+
+        this.baseX = baseX;
+        this.baseY = baseY;
+        for (Tile[][] planeTiles : tiles)
+        {
+            for (Tile[] column : planeTiles)
+            {
+                Arrays.fill(column, null);
+            }
+        }
+    }
+
+    /**
+     * Makes the loaded scene an instance built from the given template chunks, or a normal scene for null
+     */
+    public void setInstance(int[][][] instanceTemplates)
+    {
+        this.instanceTemplates = instanceTemplates;
+    }
+
+    public void setInventory(ItemContainer inventory)
+    {
+        this.inventory = inventory;
+    }
+
+    public void setVarbit(int varbit, int value)
+    {
+        varbits.put(varbit, value);
+    }
+
+    public void setShop(String shopName, Widget[] shopItems)
+    {
+        this.shopName = shopName;
+        this.shopItems = shopItems;
+    }
+
+    /**
+     * Gets the tile at the given scene coordinates, creating it on first use
+     */
+    public Tile tile(int sceneX, int sceneY, int tilePlane)
+    {
+        Tile tile = tiles[tilePlane][sceneX][sceneY];
+        if (tile == null)
+        {
+            WorldPoint worldLocation = new WorldPoint(baseX + sceneX, baseY + sceneY, tilePlane);
+            Point sceneLocation = new Point(sceneX, sceneY);
+            LocalPoint localLocation = new LocalPoint(sceneX * LOCAL_TILE_SIZE + LOCAL_TILE_SIZE / 2,
+                    sceneY * LOCAL_TILE_SIZE + LOCAL_TILE_SIZE / 2);
+            List<TileItem> groundItems = new ArrayList<>();
+            Integer boxedPlane = tilePlane;
+            tile = stub(Tile.class, (method, args) ->
+            {
+                switch (method)
+                {
+                    case "getWorldLocation":
+                        return worldLocation;
+                    case "getSceneLocation":
+                        return sceneLocation;
+                    case "getLocalLocation":
+                        return localLocation;
+                    case "getPlane":
+                        return boxedPlane;
+                    case "getGroundItems":
+                        return groundItems;
+                    default:
+                        return null;
+                }
+            });
+            tiles[tilePlane][sceneX][sceneY] = tile;
+        }
+        return tile;
+    }
+
+    public static TileItem item(int itemId, int quantity)
+    {
+        Integer boxedId = itemId;
+        Integer boxedQuantity = quantity;
+        return stub(TileItem.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getId":
+                    return boxedId;
+                case "getQuantity":
+                    return boxedQuantity;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public NPC npc(int index, WorldPoint location, boolean targetingPlayer, int healthRatio)
+    {
+        return stub(NPC.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getIndex":
+                    return index;
+                case "getWorldLocation":
+                    return location;
+                case "getInteracting":
+                    return targetingPlayer ? localPlayer : null;
+                case "getHealthRatio":
+                    return healthRatio;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public static MenuEntry menuEntry(MenuAction type, int identifier, int param0, int param1)
+    {
+        boolean[] deprioritized = new boolean[1];
+        Integer boxedIdentifier = identifier;
+        Integer boxedParam0 = param0;
+        Integer boxedParam1 = param1;
+        return stub(MenuEntry.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getType":
+                    return type;
+                case "getIdentifier":
+                    return boxedIdentifier;
+                case "getParam0":
+                    return boxedParam0;
+                case "getParam1":
+                    return boxedParam1;
+                case "isDeprioritized":
+                    return deprioritized[0];
+                case "setDeprioritized":
+                    deprioritized[0] = (Boolean) args[0];
+                    return null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * A click on an inventory item's option, e.g. "Drop"
+     */
+    public static MenuEntry inventoryOption(String option, int itemId, int slot)
+    {
+        return stub(MenuEntry.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getOption":
+                    return option;
+                case "getType":
+                    return MenuAction.CC_OP;
+                case "getItemId":
+                    return itemId;
+                case "getParam0":
+                    return slot;
+                case "isItemOp":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public static ItemContainer container(int containerId, int[] itemIds, int[] quantities)
+    {
+        Item[] items = new Item[itemIds.length];
+        for (int i = 0; i < items.length; i++)
+        {
+            items[i] = new Item(itemIds[i], quantities[i]);
+        }
+
+        return stub(ItemContainer.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getId":
+                    return containerId;
+                case "getItems":
+                    return items;
+                case "getItem":
+                    int slot = (Integer) args[0];
+                    return slot >= 0 && slot < items.length ? items[slot] : null;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    public void defineItem(int itemId, String name, int price)
+    {
+        itemDefinitions.put(itemId, stub(ItemComposition.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getName":
+                    return name;
+                case "getPrice":
+                    return price;
+                case "isTradeable":
+                    return true;
+                case "getNote":
+                    return -1;
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    /**
+     * Defines the noted version of an item
+     */
+    public void defineNote(int notedId, int itemId)
+    {
+        itemDefinitions.put(notedId, stub(ItemComposition.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getName":
+                    return itemDefinitions.get(itemId).getName();
+                case "getNote":
+                    return 799;
+                case "getLinkedNoteId":
+                    return itemId;
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    public static Widget shopItem(int itemId, int quantity)
+    {
+        Integer boxedId = itemId;
+        Integer boxedQuantity = quantity;
+        return stub(Widget.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getItemId":
+                    return boxedId;
+                case "getItemQuantity":
+                    return boxedQuantity;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private Widget shopWidget(int groupId, int childId)
+    {
+        if (groupId != InterfaceID.SHOP)
+        {
+            return null;
+        }
+
+        return shopWidgets.computeIfAbsent(childId, id -> stub(Widget.class, (method, args) ->
+        {
+            switch (method)
+            {
+                case "getChildren":
+                    return childId == 3 ? shopItems : null;
+                case "getText":
+                    return childId == 1 ? shopName : null;
+                case "getId":
+                    return groupId << 16 | childId;
+                default:
+                    return null;
+            }
+        }));
+    }
+
+    /**
+     * Config proxy that answers every item with its declared default
+     */
+    public static IronmanQolConfig defaultConfig()
+    {
+        return config(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Config proxy that answers from the given map, keyed by config method name, falling back to the declared default.
+     * The map is read on every call, so tests can change values after creating the config, and setters write to it.
+     */
+    public static IronmanQolConfig config(Map<String, Object> values)
+    {
+        Map<Method, Object> defaults = new ConcurrentHashMap<>();
+        return (IronmanQolConfig) Proxy.newProxyInstance(IronmanQolConfig.class.getClassLoader(),
+                new Class<?>[]{IronmanQolConfig.class},
+                (proxy, method, args) ->
+                {
+                    if (method.getReturnType() == void.class && args != null && args.length == 1)
+                    {
+                        // Setter of a hidden item, like ConfigManager.setConfiguration
+                        values.put(method.getName(), args[0]);
+                        return null;
+                    }
+
+                    Object value = values.get(method.getName());
+                    if (value != null || !method.isDefault())
+                    {
+                        return value;
+                    }
+
+                    value = defaults.get(method);
+                    if (value == null)
+                    {
+                        value = invokeDefault(proxy, method, args);
+                        defaults.put(method, value);
+                    }
+                    return value;
+                });
+    }
+
+    private static Object invokeDefault(Object proxy, Method method, Object[] args) throws Throwable
+    {
+        Class<?> type = method.getDeclaringClass();
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                .unreflectSpecial(method, type)
+                .bindTo(proxy)
+                .invokeWithArguments(args == null ? new Object[0] : args);
+    }
+
+    @FunctionalInterface
+    interface Answer
+    {
+        Object answer(String method, Object[] args);
+    }
+
+    static <T> T stub(Class<T> type, Answer answer)
+    {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) ->
+        {
+            switch (method.getName())
+            {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(self));
+                default:
+                    break;
+            }
+
+            Object value = answer.answer(method.getName(), args);
+            return value != null ? value : defaultValue(method.getReturnType());
+        });
+        return type.cast(proxy);
+    }
+
+    private static Object defaultValue(Class<?> type)
+    {
+        if (type == boolean.class)
+        {
+            return false;
+        }
+        if (type == int.class)
+        {
+            return 0;
+        }
+        if (type == long.class)
+        {
+            return 0L;
+        }
+        if (type == double.class)
+        {
+            return 0d;
+        }
+        if (type == float.class)
+        {
+            return 0f;
+        }
+        if (type == short.class)
+        {
+            return (short) 0;
+        }
+        if (type == byte.class)
+        {
+            return (byte) 0;
+        }
+        if (type == char.class)
+        {
+            return (char) 0;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ironmanqol;
+
+import org.junit.Test;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TileItemsTest
+{
+    @Test
+    public void largePileKeepsEveryIdAsItsRemoved()
+    {
+        // Ids a table size apart share a hash bucket now and then, so removals have to shift probe runs back
+        TileItems items = new TileItems();
+        for (int id = 0; id < 300; id++)
+        {
+            items.add(id * 512, id % 2 == 0 ? OTHER_PLAYER : PLAYER_DROPPED);
+        }
+        assertEquals(300, items.getItemIdCount());
+
+        for (int id = 0; id < 300; id += 3)
+        {
+            assertTrue(items.remove(id * 512, id % 2 == 0 ? OTHER_PLAYER : PLAYER_DROPPED));
+        }
+        assertEquals(200, items.getItemIdCount());
+
+        for (int id = 0; id < 300; id++)
+        {
+            GroundItemManager.ItemOwnership expected = id % 3 == 0 ? UNKNOWN : id % 2 == 0 ? OTHER_PLAYER : PLAYER_DROPPED;
+            assertEquals(expected, items.getOwnership(id * 512));
+        }
+        assertFalse(items.remove(0, OTHER_PLAYER));
+    }
+}
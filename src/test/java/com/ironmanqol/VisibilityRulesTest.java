@@ -0,0 +1,66 @@
+package com.ironmanqol;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static com.ironmanqol.VisibilityRules.Context.TAKE_CLICK;
+import static com.ironmanqol.VisibilityRules.Context.TAKE_OPTION;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VisibilityRulesTest
+{
+    private final Map<String, Object> config = new HashMap<>();
+    private VisibilityRules rules;
+
+    @Before
+    public void setUp()
+    {
+        rules = new StubClient().createInjector(StubClient.config(config)).getInstance(VisibilityRules.class);
+    }
+
+    @Test
+    public void defaultsHideWhatCantBePickedUp()
+    {
+        assertTrue(rules.isAllowed(TAKE_OPTION, PLAYER_DROPPED, 995, 12850));
+        assertTrue(rules.isAllowed(TAKE_OPTION, STATIC_SPAWN, 995, 12850));
+        assertFalse(rules.isAllowed(TAKE_OPTION, OTHER_PLAYER, 995, 12850));
+        assertTrue(rules.isAllowed(TAKE_OPTION, UNKNOWN, 995, 12850));
+        assertTrue(rules.isAllowed(TAKE_OPTION, PLAYER_LOOT, 995, 12850));
+        assertTrue(rules.isShopItemVisible(true));
+        assertFalse(rules.isShopItemVisible(false));
+    }
+
+    @Test
+    public void rebuildPicksUpConfigChanges()
+    {
+        config.put("removeClickOptions", false);
+        rules.rebuild();
+        assertFalse(rules.filtersTakeOption());
+        assertTrue(rules.isAllowed(TAKE_OPTION, OTHER_PLAYER, 995, 12850));
+        assertFalse(rules.isAllowed(TAKE_CLICK, OTHER_PLAYER, 995, 12850));
+
+        config.put("removeClickOptions", true);
+        config.put("hideGroundItems", false);
+        rules.rebuild();
+        assertFalse(rules.filtersTakeOption());
+        assertTrue(rules.isAllowed(TAKE_OPTION, OTHER_PLAYER, 995, 12850));
+    }
+
+    @Test
+    public void showTogglesOnlyMoveTakeDown()
+    {
+        config.put("showOwnDrops", false);
+        config.put("showStaticSpawns", false);
+        rules.rebuild();
+        assertFalse(rules.isAllowed(TAKE_OPTION, PLAYER_DROPPED, 995, 12850));
+        assertFalse(rules.isAllowed(TAKE_OPTION, STATIC_SPAWN, 995, 12850));
+        assertTrue(rules.isAllowed(TAKE_OPTION, PLAYER_LOOT, 995, 12850));
+        assertTrue(rules.isAllowed(TAKE_CLICK, PLAYER_DROPPED, 995, 12850));
+        assertTrue(rules.isAllowed(TAKE_CLICK, STATIC_SPAWN, 995, 12850));
+    }
+}
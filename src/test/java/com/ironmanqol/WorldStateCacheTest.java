@@ -0,0 +1,118 @@
+package com.ironmanqol;
+
+import com.google.inject.Injector;
+import net.runelite.api.GameState;
+import net.runelite.api.ItemID;
+import net.runelite.api.MenuAction;
+import net.runelite.api.Tile;
+import net.runelite.api.events.ActorDeath;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.ItemSpawned;
+import net.runelite.api.events.MenuOptionClicked;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.ironmanqol.GroundItemManager.ItemOwnership.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorldStateCacheTest
+{
+    private static final int SCENE_X = 50;
+    private static final int SCENE_Y = 50;
+
+    private final StubClient client = new StubClient();
+
+    private GroundItemManager groundItemManager;
+    private WorldStateCache worldStateCache;
+    private PickupGuard pickupGuard;
+    private AccountActivation activation;
+    private Tile tile;
+
+    @Before
+    public void setUp()
+    {
+        Injector injector = client.createInjector();
+        groundItemManager = injector.getInstance(GroundItemManager.class);
+        worldStateCache = injector.getInstance(WorldStateCache.class);
+        pickupGuard = injector.getInstance(PickupGuard.class);
+        activation = injector.getInstance(AccountActivation.class);
+        worldStateCache.onWorldLoaded(301);
+
+        // Someone else's coins, then our loot next to them
+        tile = client.tile(SCENE_X, SCENE_Y, 0);
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(ItemID.COINS_995, 250)));
+        groundItemManager.onActorDeath(new ActorDeath(client.npc(1, tile.getWorldLocation(), true, 0)));
+        groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(ItemID.BIG_BONES, 1)));
+    }
+
+    @Test
+    public void takeStaysAllowedAfterHoppingBack()
+    {
+        hop(302);
+        hop(301, ItemID.BIG_BONES, ItemID.COINS_995);
+
+        assertEquals(1, worldStateCache.getHits());
+        assertEquals(PLAYER_LOOT, groundItemManager.getItemOwnership(ItemID.BIG_BONES, SCENE_X, SCENE_Y, 0));
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(ItemID.COINS_995, SCENE_X, SCENE_Y, 0));
+        assertEquals(1, (int) groundItemManager.countByOwnership().get(PLAYER_LOOT));
+
+        MenuOptionClicked bones = take(ItemID.BIG_BONES);
+        pickupGuard.onMenuOptionClicked(bones);
+        assertFalse(bones.isConsumed());
+
+        MenuOptionClicked coins = take(ItemID.COINS_995);
+        pickupGuard.onMenuOptionClicked(coins);
+        assertTrue(coins.isConsumed());
+    }
+
+    @Test
+    public void ownItemCountdownsComeBackWithTheWorld()
+    {
+        hop(302);
+        assertTrue(groundItemManager.getDespawnTimers().isEmpty());
+
+        hop(301, ItemID.BIG_BONES, ItemID.COINS_995);
+        assertEquals(1, groundItemManager.getDespawnTimers().get(tile.getWorldLocation()).size());
+    }
+
+    @Test
+    public void loggingOutForgetsTheAccountsItems()
+    {
+        hop(302);
+        activation.reset();
+        hop(301, ItemID.BIG_BONES);
+
+        assertEquals(0, worldStateCache.getHits());
+        assertEquals(OTHER_PLAYER, groundItemManager.getItemOwnership(ItemID.BIG_BONES, SCENE_X, SCENE_Y, 0));
+    }
+
+    /**
+     * Hops like the client does: the new world's items are sent while the scene loads, before LOGGED_IN
+     */
+    private void hop(int world, int... sentItemIds)
+    {
+        worldStateCache.onHopStarted();
+        client.setWorld(world);
+        groundItemManager.onGameStateChanged(gameState(GameState.LOADING));
+        for (int itemId : sentItemIds)
+        {
+            groundItemManager.onItemSpawned(new ItemSpawned(tile, StubClient.item(itemId, 1)));
+        }
+        groundItemManager.onGameStateChanged(gameState(GameState.LOGGED_IN));
+        worldStateCache.onWorldLoaded(world);
+    }
+
+    private static GameStateChanged gameState(GameState state)
+    {
+        GameStateChanged event = new GameStateChanged();
+        event.setGameState(state);
+        return event;
+    }
+
+    private static MenuOptionClicked take(int itemId)
+    {
+        return new MenuOptionClicked(StubClient.menuEntry(MenuAction.GROUND_ITEM_THIRD_OPTION, itemId, SCENE_X, SCENE_Y));
+    }
+}